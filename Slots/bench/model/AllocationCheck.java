@@ -0,0 +1,64 @@
+/**
+ * AllocationCheck Class - fails if a steady-state spin allocates anything on the heap.
+ */
+package model;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * @author retro
+ *
+ */
+public class AllocationCheck {
+	private final static int WARMUP_SPINS = 200000; // enough for the JIT to compile the spin path
+	private final static int SPINS = 1000000;
+	private final static long SEED = 12345L;
+	
+	private static long sink = 0; // keeps the JIT from throwing results away
+	
+	public static void main(String[] args){ // usage: AllocationCheck [spins]
+		int spins = args.length > 0 ? Integer.parseInt(args[0]) : SPINS;
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(!(bean instanceof com.sun.management.ThreadMXBean) ||
+		   !((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()){
+			System.out.println("Allocation counting is unavailable on this JVM");
+			System.exit(2);
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+		threads.setThreadAllocatedMemoryEnabled(true);
+		
+		boolean failed = false;
+		failed |= check(threads, "1 line", new Slots(1, 1, 0, 0, RandomSource.seeded(SEED)), spins);
+		failed |= check(threads, Slots.maxBetLines() + " lines", new Slots(Slots.maxBetLines(), 1, 0, 0,
+				RandomSource.seeded(SEED)), spins);
+		Slots ways = new Slots(1, 1, 0, 0, RandomSource.seeded(SEED));
+		ways.setWays(true);
+		failed |= check(threads, "ways", ways, spins);
+		if(failed){
+			System.exit(1);
+		}
+	}
+	
+	private static boolean check(com.sun.management.ThreadMXBean threads, String name, Slots game, int spins){
+		// returns true if the spins allocated anything once warmed up.
+		sink += run(game, WARMUP_SPINS);
+		long id = Thread.currentThread().getId();
+		long overhead = threads.getThreadAllocatedBytes(id); // asking may allocate, so measure that too
+		long before = threads.getThreadAllocatedBytes(id);
+		overhead = before - overhead;
+		sink += run(game, spins);
+		long bytes = threads.getThreadAllocatedBytes(id) - before - overhead;
+		System.out.println(String.format("%-12s %12d bytes over %d spins%s", name, Math.max(bytes, 0), spins,
+				bytes > 0 ? "  ALLOCATES" : ""));
+		return bytes > 0;
+	}
+	
+	private static long run(Slots game, int spins){ // spins with the balance kept topped up.
+		long x = 0;
+		for(int i = 0; i < spins; i++){
+			game.setBalance(1000000); // keep the balance from running dry or overflowing
+			x += game.spin();
+		}
+		return x;
+	}
+}
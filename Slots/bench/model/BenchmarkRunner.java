@@ -0,0 +1,98 @@
+/**
+ * BenchmarkRunner Class - a small timing harness for the hot paths, in the spirit of JMH.
+ */
+package model;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+/**
+ * @author retro
+ *
+ */
+public class BenchmarkRunner {
+	private final static int WARMUP_ITERATIONS = 5;
+	private final static int ITERATIONS = 5;
+	private final static long ITERATION_NANOS = 500000000L; // time spent in each iteration
+	
+	public interface Benchmark {
+		long run(int ops); // runs the operation ops times and returns something derived from the results.
+	}
+	
+	private final ArrayList<String> names = new ArrayList<>();
+	private final ArrayList<Benchmark> benchmarks = new ArrayList<>();
+	private final com.sun.management.ThreadMXBean threads; // null if allocation counting is unavailable
+	private long sink = 0; // keeps the JIT from throwing results away
+	
+	public BenchmarkRunner(){
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(bean instanceof com.sun.management.ThreadMXBean &&
+		   ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()){
+			threads = (com.sun.management.ThreadMXBean) bean;
+			threads.setThreadAllocatedMemoryEnabled(true);
+		} else {
+			threads = null;
+		}
+	}
+	
+	public void add(String name, Benchmark b){ // registers a benchmark.
+		names.add(name);
+		benchmarks.add(b);
+	}
+	
+	public void run(String filter){ // runs every benchmark whose name contains filter and prints a table.
+		System.out.println(String.format("%-36s %12s %12s %10s", "Benchmark", "ns/op", "error", "B/op"));
+		for(int i = 0; i < benchmarks.size(); i++){
+			if(filter == null || names.get(i).contains(filter)){
+				measure(names.get(i), benchmarks.get(i));
+			}
+		}
+		if(sink == 42){ // practically never true, but the JIT can't know that
+			System.out.println();
+		}
+	}
+	
+	private void measure(String name, Benchmark b){
+		int ops = calibrate(b);
+		for(int i = 0; i < WARMUP_ITERATIONS; i++){
+			sink += b.run(ops);
+		}
+		double[] nanos = new double[ITERATIONS];
+		double bytes = 0;
+		long tid = Thread.currentThread().getId();
+		for(int i = 0; i < ITERATIONS; i++){
+			long a0 = threads == null ? 0 : threads.getThreadAllocatedBytes(tid);
+			long t0 = System.nanoTime();
+			sink += b.run(ops);
+			long t1 = System.nanoTime();
+			long a1 = threads == null ? 0 : threads.getThreadAllocatedBytes(tid);
+			nanos[i] = (double) (t1 - t0) / ops;
+			bytes += (double) (a1 - a0) / ops;
+		}
+		double mean = 0;
+		for(double n : nanos){
+			mean += n;
+		}
+		mean /= ITERATIONS;
+		double var = 0;
+		for(double n : nanos){
+			var += (n - mean) * (n - mean);
+		}
+		double error = 2.776 * Math.sqrt(var / (ITERATIONS - 1)) / Math.sqrt(ITERATIONS); // 95% Student t for 4 degrees of freedom
+		System.out.println(String.format("%-36s %12.2f %12.2f %10s", name, mean, error,
+				threads == null ? "n/a" : String.format("%.1f", bytes / ITERATIONS)));
+	}
+	
+	private int calibrate(Benchmark b){ // finds how many ops fill one iteration.
+		int ops = 1;
+		while(true){
+			long t0 = System.nanoTime();
+			sink += b.run(ops);
+			long t = System.nanoTime() - t0;
+			if(t > ITERATION_NANOS / 10 || ops >= (1 << 28)){
+				return (int) Math.max(1, Math.min(Integer.MAX_VALUE, ops * (ITERATION_NANOS / Math.max(t, 1))));
+			}
+			ops *= 2;
+		}
+	}
+}
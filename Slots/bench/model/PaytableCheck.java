@@ -0,0 +1,70 @@
+/**
+ * PaytableCheck Class - checks that paytable files are read the way they're documented.
+ */
+package model;
+
+import java.util.Properties;
+
+/**
+ * @author retro
+ *
+ */
+public class PaytableCheck {
+	// entries that must be refused rather than quietly paying something else
+	private final static String[] BAD_KEYS = {
+		"one_pair.rnak", "royal_flush.99", "one_pair.1", "one_pair.15", "one_pair.0", "one_pair.-3",
+		"one_pair.", "flush.7", "three_of_a_kind.2.rank", "onepair", "name.rank",
+		"royal_flush.rank", "straight.rank"
+	};
+	// and entries that must be accepted
+	private final static String[] GOOD_KEYS = {
+		"one_pair", "one_pair.rank", "one_pair.2", "one_pair.14", "four_of_a_kind.9", "flush.0", "royal_flush"
+	};
+	
+	public static void main(String[] args){ // usage: PaytableCheck
+		int failures = 0;
+		for(String key : BAD_KEYS){
+			try {
+				compile(key);
+				System.out.println("Accepted bad entry " + key);
+				failures++;
+			} catch (IllegalArgumentException e){
+				if(!e.getMessage().contains(key)){
+					System.out.println("Refused " + key + " without naming it: " + e.getMessage());
+					failures++;
+				}
+			}
+		}
+		for(String key : GOOD_KEYS){
+			try {
+				compile(key);
+			} catch (IllegalArgumentException e){
+				System.out.println("Refused good entry " + key + ": " + e.getMessage());
+				failures++;
+			}
+		}
+		Paytable p = compile("one_pair.9"); // an exact rank overrides the base pay for that rank only
+		if(p.pay(HandEvaluator.pack(Slots.ONE_PAIR, 9)) != 7 || p.pay(HandEvaluator.pack(Slots.ONE_PAIR, 8)) != 0){
+			System.out.println("one_pair.9 paid the wrong ranks");
+			failures++;
+		}
+		Properties big = new Properties(); // ranks a hand can't win with mustn't count towards the top pay
+		big.setProperty("straight", "250");
+		big.setProperty("one_pair.rank", "1000");
+		if(Paytable.compile(big).getMaxPay() != 14000){
+			System.out.println("Top pay counted a rank that can't come up: " + Paytable.compile(big).getMaxPay());
+			failures++;
+		}
+		System.out.println(Paytable.STANDARD);
+		System.out.println(failures == 0 ? "Paytable entries check out" : failures + " paytable checks failed");
+		if(failures > 0){
+			System.exit(1);
+		}
+	}
+	
+	private static Paytable compile(String key){ // compiles a paytable holding just the one entry.
+		Properties p = new Properties();
+		p.setProperty(key, "7");
+		return Paytable.compile(p);
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * SessionFootprint Class - measures the heap each game session holds, against a byte budget.
+ */
+package model;
+
+/**
+ * @author retro
+ *
+ */
+public class SessionFootprint {
+	// Shared tables (cards, line tables, paytables, evaluator) are built before the first
+	// measurement, so only what each session holds for itself is counted.
+	private final static int IDLE_BUDGET = 256; // bytes per session that has never spun
+	private final static int PLAYED_BUDGET = 768; // bytes per session that has spun on 35 lines, deck and all
+	private final static int SESSIONS = 200000;
+	private final static long SEED = 12345L;
+	
+	private static Slots[] held; // keeps the sessions reachable while they're measured
+	
+	public static void main(String[] args){ // usage: SessionFootprint [sessions] [rows]
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : SESSIONS;
+		Geometry g = Geometry.valueOf(args.length > 1 ? Integer.parseInt(args[1]) : Slots.getRows());
+		RandomSource rng = RandomSource.seeded(SEED);
+		new Slots(g, rng.split()).spin(); // loads the shared tables
+		
+		Slots[] sessions = new Slots[n];
+		held = sessions;
+		long before = used();
+		for(int i = 0; i < n; i++){
+			sessions[i] = new Slots(g, 1, 1, 1000, 0, rng.split());
+		}
+		double idle = (double) (used() - before) / n;
+		for(Slots s : sessions){
+			s.setBetLines(Math.min(Slots.maxBetLines(), g.getLineCount()));
+			s.spin();
+		}
+		double played = (double) (used() - before) / n;
+		
+		boolean over = idle > IDLE_BUDGET || played > PLAYED_BUDGET;
+		System.out.println(n + " sessions on " + g);
+		System.out.println(String.format("Idle:   %8.1f bytes per session (budget %d)", idle, IDLE_BUDGET));
+		System.out.println(String.format("Played: %8.1f bytes per session (budget %d)", played, PLAYED_BUDGET));
+		System.out.println(over ? "OVER BUDGET" : "Within budget");
+		if(over){
+			System.exit(1);
+		}
+	}
+	
+	private static long used(){ // heap in use once the garbage is gone.
+		Runtime r = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for(int i = 0; i < 5; i++){ // collect until it stops shrinking
+			System.gc();
+			long now = r.totalMemory() - r.freeMemory();
+			if(now >= used){
+				break;
+			}
+			used = now;
+		}
+		return used;
+	}
+}
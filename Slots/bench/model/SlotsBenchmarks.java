@@ -0,0 +1,252 @@
+/**
+ * SlotsBenchmarks Class - benchmarks for shuffling, dealing, hand evaluation and spinning.
+ */
+package model;
+
+/**
+ * @author retro
+ *
+ */
+public class SlotsBenchmarks {
+	private final static int HANDS = 1 << 12; // hands in each distribution, a power of two
+	private final static long SEED = 12345L;
+	
+	public static void main(String[] args){ // usage: SlotsBenchmarks [name filter]
+		checkBatch(); // the batch evaluator must agree with the plain one before its timings mean anything
+		BenchmarkRunner runner = new BenchmarkRunner();
+		final SlotsDeck deck = new SlotsDeck(RandomSource.seeded(SEED));
+		
+		runner.add("SlotsDeck.shuffle(1)", ops -> {
+			long x = 0;
+			for(int i = 0; i < ops; i++){
+				deck.reset();
+				deck.shuffle(1);
+				x += deck.dealCode();
+			}
+			return x;
+		});
+		runner.add("SlotsDeck.shuffle(3)", ops -> {
+			long x = 0;
+			for(int i = 0; i < ops; i++){
+				deck.reset();
+				deck.shuffle(3);
+				x += deck.dealCode();
+			}
+			return x;
+		});
+		runner.add("SlotsDeck.partialShuffle(15)", ops -> {
+			long x = 0;
+			for(int i = 0; i < ops; i++){
+				deck.reset();
+				deck.partialShuffle(Slots.size());
+				x += deck.dealCode();
+			}
+			return x;
+		});
+		runner.add("SlotsDeck.deal()", ops -> {
+			long x = 0;
+			for(int i = 0; i < ops; i++){
+				if(deck.size() == 0){
+					deck.reset();
+				}
+				x += deck.deal().getRank();
+			}
+			return x;
+		});
+		
+		addEvaluate(runner, "HandEvaluator.evaluate random", hands(RandomSource.seeded(SEED), 0));
+		addEvaluate(runner, "HandEvaluator.evaluate joker-heavy", hands(RandomSource.seeded(SEED), 1));
+		addEvaluate(runner, "HandEvaluator.evaluate flush-heavy", hands(RandomSource.seeded(SEED), 2));
+		addBatch(runner, "HandBatch evaluate random", hands(RandomSource.seeded(SEED), 0));
+		addBatch(runner, "HandBatch evaluate joker-heavy", hands(RandomSource.seeded(SEED), 1));
+		addBatch(runner, "HandBatch evaluate flush-heavy", hands(RandomSource.seeded(SEED), 2));
+		
+		addWinnings(runner, 1);
+		addWinnings(runner, Slots.maxBetLines());
+		addSpin(runner, Geometry.STANDARD, 1, false);
+		addSpin(runner, Geometry.STANDARD, Slots.maxBetLines(), false);
+		addSpin(runner, Geometry.STANDARD, Slots.maxBetLines(), true);
+		addSpin(runner, Geometry.valueOf(4), Slots.maxBetLines(), false); // same lines on bigger boards
+		addSpin(runner, Geometry.valueOf(5), Slots.maxBetLines(), false);
+		addReelSpin(runner, 1);
+		addReelSpin(runner, Slots.maxBetLines());
+		addOutcomeSpin(runner);
+		addAutoSpin(runner, Slots.maxBetLines());
+		
+		runner.run(args.length > 0 ? args[0] : null);
+	}
+	
+	private static void addEvaluate(BenchmarkRunner runner, String name, final int[] hands){
+		runner.add(name, ops -> {
+			long x = 0;
+			int mask = HANDS - 1;
+			for(int i = 0; i < ops; i++){
+				int h = (i & mask) * 5;
+				x += HandEvaluator.evaluate(hands[h], hands[h + 1], hands[h + 2], hands[h + 3], hands[h + 4]);
+			}
+			return x;
+		});
+	}
+	
+	private static void addBatch(BenchmarkRunner runner, String name, int[] hands){ // per hand, a whole batch at a time.
+		final HandBatch batch = batch(hands);
+		runner.add(name, ops -> {
+			long x = 0;
+			for(int done = 0; done < ops; done += HANDS){
+				HandEvaluator.evaluate(batch);
+				x += batch.getResult(done & (HANDS - 1));
+			}
+			return x;
+		});
+	}
+	
+	private static HandBatch batch(int[] hands){ // loads hands into a batch.
+		HandBatch batch = new HandBatch(hands.length / 5);
+		for(int h = 0; h < hands.length; h += 5){
+			batch.add(hands[h], hands[h + 1], hands[h + 2], hands[h + 3], hands[h + 4]);
+		}
+		return batch;
+	}
+	
+	private static void checkBatch(){ // compares the batch evaluator with the plain one on every distinct hand.
+		// Every set of five cards, Jokers allowed to repeat, in an order that varies from hand
+		// to hand, plus the benchmark distributions.
+		HandBatch batch = new HandBatch(HANDS);
+		int[] codes = new int[HANDS * 5];
+		int[] c = new int[5];
+		long checked = 0;
+		for(c[0] = 0; c[0] < Card.CODES; c[0]++){
+			for(c[1] = c[0]; c[1] < Card.CODES; c[1]++){
+				for(c[2] = c[1]; c[2] < Card.CODES; c[2]++){
+					for(c[3] = c[2]; c[3] < Card.CODES; c[3]++){
+						for(c[4] = c[3]; c[4] < Card.CODES; c[4]++){
+							if(!distinct(c)){
+								continue;
+							}
+							int h = batch.size();
+							int turn = (int) (checked % 5);
+							for(int i = 0; i < 5; i++){
+								codes[h * 5 + i] = c[(i + turn) % 5];
+							}
+							batch.add(codes[h * 5], codes[h * 5 + 1], codes[h * 5 + 2], codes[h * 5 + 3], codes[h * 5 + 4]);
+							checked++;
+							if(batch.size() == HANDS){
+								compare(batch, codes);
+							}
+						}
+					}
+				}
+			}
+		}
+		compare(batch, codes);
+		for(int kind = 0; kind < 3; kind++){
+			int[] hands = hands(RandomSource.seeded(SEED), kind);
+			compare(batch(hands), hands);
+			checked += HANDS;
+		}
+		System.out.println("Batch evaluator agrees on " + checked + " hands");
+	}
+	
+	private static boolean distinct(int[] c){ // true if no standard card appears twice.
+		for(int i = 1; i < c.length; i++){
+			if(c[i] == c[i - 1] && c[i] != Card.JOKER_CODE){
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static void compare(HandBatch batch, int[] codes){ // evaluates the batch and checks every hand, then empties it.
+		HandEvaluator.evaluate(batch);
+		for(int h = 0; h < batch.size(); h++){
+			int expected = HandEvaluator.evaluate(codes[h * 5], codes[h * 5 + 1], codes[h * 5 + 2], codes[h * 5 + 3],
+					codes[h * 5 + 4]);
+			if(batch.getResult(h) != expected){
+				throw new IllegalStateException("Batch evaluator disagrees on hand " + h + ": " + batch.getResult(h) +
+						" instead of " + expected);
+			}
+		}
+		batch.clear();
+	}
+	
+	private static void addWinnings(BenchmarkRunner runner, final int lines){ // scores a dealt board.
+		final Slots game = new Slots(lines, 1, 0, 0, RandomSource.seeded(SEED));
+		game.play();
+		runner.add("Slots.addWinnings(" + lines + ")", ops -> {
+			long x = 0;
+			for(int i = 0; i < ops; i++){
+				x += game.addWinnings(lines);
+			}
+			return x;
+		});
+	}
+	
+	private static void addSpin(BenchmarkRunner runner, Geometry g, final int lines, boolean metrics){ // a whole spin, balance and all.
+		final Slots game = new Slots(g, lines, 1, 0, 0, RandomSource.seeded(SEED));
+		if(metrics){ // shows what the instrumentation costs
+			game.setMetrics(new SlotsMetrics());
+		}
+		runner.add("Slots.spin() " + g + " " + lines + " lines" + (metrics ? " with metrics" : ""), ops -> {
+			long x = 0;
+			for(int i = 0; i < ops; i++){
+				game.setBalance(1000000); // keep the balance from running dry or overflowing
+				x += game.spin();
+			}
+			return x;
+		});
+	}
+	
+	private static void addReelSpin(BenchmarkRunner runner, final int lines){ // a whole spin off reel strips.
+		final Slots game = new Slots(lines, 1, 0, 0, RandomSource.seeded(SEED));
+		game.setReelStrips(ReelStrips.standard(Geometry.STANDARD, RandomSource.seeded(SEED)));
+		runner.add("Slots.spin() reel strips " + lines + " lines", ops -> {
+			long x = 0;
+			for(int i = 0; i < ops; i++){
+				game.setBalance(1000000);
+				x += game.spin();
+			}
+			return x;
+		});
+	}
+	
+	private static void addOutcomeSpin(BenchmarkRunner runner){ // a one line spin with the hand picked first.
+		final Slots game = new Slots(1, 1, 0, 0, RandomSource.seeded(SEED));
+		game.setOutcomes(new OutcomeTable(Geometry.STANDARD), false);
+		runner.add("Slots.spin() outcome-first 1 lines", ops -> {
+			long x = 0;
+			for(int i = 0; i < ops; i++){
+				game.setBalance(1000000);
+				x += game.spin();
+			}
+			return x;
+		});
+	}
+	
+	private static void addAutoSpin(BenchmarkRunner runner, final int lines){ // autoplay, reported per spin.
+		final Slots game = new Slots(lines, 1, 0, 0, RandomSource.seeded(SEED));
+		runner.add("Slots.autoSpin() " + lines + " lines", ops -> {
+			game.setBalance(1000000); // saturates rather than overflowing, and never runs dry
+			return game.autoSpin(ops).getPaid();
+		});
+	}
+	
+	private static int[] hands(RandomSource rng, int kind){ // 0 dealt from the deck, 1 joker-heavy, 2 flush-heavy
+		int[] hands = new int[HANDS * 5];
+		SlotsDeck deck = new SlotsDeck(rng);
+		for(int h = 0; h < HANDS; h++){
+			deck.reset();
+			deck.partialShuffle(5);
+			int suit = rng.nextInt(4);
+			for(int i = 0; i < 5; i++){
+				int code = deck.dealCode();
+				if(kind == 1 && rng.nextInt(2) == 0){ // about half the cards are Jokers
+					code = Card.JOKER_CODE;
+				} else if(kind == 2 && code != Card.JOKER_CODE){ // move every card to one suit
+					code = Card.code(Card.rankOf(code), suit);
+				}
+				hands[h * 5 + i] = code;
+			}
+		}
+		return hands;
+	}
+}
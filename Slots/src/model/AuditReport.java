@@ -0,0 +1,107 @@
+/**
+ * AuditReport Class - totals from replaying spin journals.
+ */
+package model;
+
+import java.util.ArrayList;
+
+/**
+ * @author retro
+ *
+ */
+public class AuditReport {
+	private final static int MAX_LISTED = 100; // mismatches kept for the report
+	
+	private long records = 0;
+	private long wagered = 0;
+	private long paid = 0; // as recomputed, not as recorded
+	private long mismatches = 0;
+	private long jackpots = 0; // jackpots won
+	private long jackpotPaid = 0; // included in paid
+	private long[] handCounts = new long[Slots.HAND_TYPES]; // winning lines by hand type
+	private ArrayList<String> listed = new ArrayList<>(); // where the first mismatches were found
+	
+	void add(long wager, long payout){ // records one replayed spin.
+		records++;
+		wagered += wager;
+		paid += payout;
+	}
+	
+	void addHand(int type){ // records a winning line.
+		handCounts[type]++;
+	}
+	
+	void addJackpot(long amount){ // records a jackpot won on a replayed spin.
+		jackpots++;
+		jackpotPaid += amount;
+	}
+	
+	void mismatch(String where, long recorded, long expected){ // records a payout that doesn't check out.
+		mismatches++;
+		if(listed.size() < MAX_LISTED){
+			listed.add(where + ": recorded " + recorded + ", expected " + expected);
+		}
+	}
+	
+	void merge(AuditReport other){ // folds the totals of another batch into this one.
+		records += other.records;
+		wagered += other.wagered;
+		paid += other.paid;
+		mismatches += other.mismatches;
+		jackpots += other.jackpots;
+		jackpotPaid += other.jackpotPaid;
+		for(int i = 0; i < handCounts.length; i++){
+			handCounts[i] += other.handCounts[i];
+		}
+		for(int i = 0; i < other.listed.size() && listed.size() < MAX_LISTED; i++){
+			listed.add(other.listed.get(i));
+		}
+	}
+	
+	public long getRecords(){ // returns the number of spins replayed.
+		return records;
+	}
+	
+	public long getMismatches(){ // returns the number of spins whose recorded payout was wrong.
+		return mismatches;
+	}
+	
+	public long getWagered(){
+		return wagered;
+	}
+	
+	public long getPaid(){ // returns the total payout, as recomputed.
+		return paid;
+	}
+	
+	public double getRtp(){ // returns the verified return to player.
+		return wagered == 0 ? 0 : (double) paid / wagered;
+	}
+	
+	public long getJackpots(){ // returns the number of jackpots won.
+		return jackpots;
+	}
+	
+	public long getJackpotPaid(){ // returns the total paid out of the jackpot, part of getPaid().
+		return jackpotPaid;
+	}
+	
+	public long getHandCount(int type){ // returns the number of lines that showed the specified hand type.
+		return handCounts[type];
+	}
+	
+	public String toString(){ // prints a report of the audit.
+		String s = "Records: " + records + "  Mismatches: " + mismatches + "\n";
+		s = s + "Wagered: " + wagered + "  Paid: " + paid + String.format("  RTP: %.4f%%%n", 100 * getRtp());
+		if(jackpots > 0){
+			s = s + "Jackpots: " + jackpots + "  Jackpot paid: " + jackpotPaid + "\n";
+		}
+		for(int i = 0; i < handCounts.length; i++){
+			s = s + String.format("%-16s %14d%n", Slots.handName(i), handCounts[i]);
+		}
+		for(String m : listed){
+			s = s + m + "\n";
+		}
+		return s.trim();
+	}
+}
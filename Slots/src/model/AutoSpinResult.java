@@ -0,0 +1,74 @@
+/**
+ * AutoSpinResult Class - the totals from an autospin run and why it stopped.
+ */
+package model;
+
+/**
+ * @author retro
+ *
+ */
+public final class AutoSpinResult {
+	// why the run stopped
+	public final static int COMPLETED = 0;
+	public final static int INSUFFICIENT_FUNDS = 1;
+	public final static int BALANCE_FLOOR = 2;
+	public final static int SINGLE_WIN = 3;
+	public final static int LOSS_LIMIT = 4;
+	
+	private final int spins;
+	private final int winningSpins;
+	private final long wagered;
+	private final long paid;
+	private final int biggestWin;
+	private final int balance;
+	private final int stopReason;
+	
+	AutoSpinResult(int spins, int winningSpins, long wagered, long paid, int biggestWin, int balance, int stopReason){
+		this.spins = spins;
+		this.winningSpins = winningSpins;
+		this.wagered = wagered;
+		this.paid = paid;
+		this.biggestWin = biggestWin;
+		this.balance = balance;
+		this.stopReason = stopReason;
+	}
+	
+	public int getSpins(){ // returns the number of spins actually run.
+		return spins;
+	}
+	
+	public int getWinningSpins(){ // returns the number of spins that paid anything.
+		return winningSpins;
+	}
+	
+	public long getWagered(){
+		return wagered;
+	}
+	
+	public long getPaid(){
+		return paid;
+	}
+	
+	public long getNet(){ // returns the player's gain over the run. Negative for a loss.
+		return paid - wagered;
+	}
+	
+	public int getBiggestWin(){
+		return biggestWin;
+	}
+	
+	public int getBalance(){ // returns the balance at the end of the run.
+		return balance;
+	}
+	
+	public int getStopReason(){
+		return stopReason;
+	}
+	
+	public String toString(){
+		String[] reasons = {"completed", "insufficient funds", "balance floor reached", "single win reached",
+				"loss limit reached"};
+		return "Spins: " + spins + " (" + reasons[stopReason] + ")  Wins: " + winningSpins +
+				"  Wagered: " + wagered + "  Paid: " + paid + "  Biggest win: " + biggestWin + "  Balance: " + balance;
+	}
+}
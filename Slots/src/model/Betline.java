@@ -1,5 +1,5 @@
 /**
- * 
+ * Betline Class - an immutable bet line, picking one row in each column of the reels.
  */
 package model;
 
@@ -7,6 +7,128 @@ package model;
  * @author retro
  *
  */
-public class Betline {
-
+public final class Betline {
+	// indicates row height. Should match number of rows.
+	public final static int HIGH = 0;
+	public final static int MID = 1;
+	public final static int LOW = 2;
+	
+	private final static int ROWS = Slots.getRows(); // lines built here are for the standard machine
+	private final static int COLUMNS = Slots.getColumns();
+	
+	// the bet lines table of the standard machine. there are only 35 "good" ones. Shared by every game.
+	private final static Betline[] TABLE = {
+		line(MID, MID, MID, MID, MID), // line 1
+		line(HIGH, HIGH, HIGH, HIGH, HIGH), // line 2
+		line(LOW, LOW, LOW, LOW, LOW), // line 3
+		line(MID, MID, HIGH, MID, MID), // line 4
+		line(MID, MID, LOW, MID, MID), // line 5
+		line(HIGH, HIGH, MID, HIGH, HIGH), // line 6
+		line(LOW, LOW, MID, LOW, LOW), // line 7
+		line(MID, HIGH, MID, HIGH, MID), // line 8
+		line(MID, LOW, MID, LOW, MID), // line 9
+		line(HIGH, MID, HIGH, MID, HIGH), // line 10
+		line(LOW, MID, LOW, MID, LOW), // line 11
+		line(MID, HIGH, HIGH, HIGH, MID), // line 12
+		line(MID, LOW, LOW, LOW, MID), // line 13
+		line(HIGH, MID, MID, MID, HIGH), // line 14
+		line(LOW, MID, MID, MID, LOW), // line 15
+		line(MID, HIGH, MID, LOW, MID), // line 16
+		line(MID, LOW, MID, HIGH, MID), // line 17
+		line(HIGH, MID, LOW, MID, HIGH), // line 18
+		line(LOW, MID, HIGH, MID, LOW), // line 19
+		line(HIGH, HIGH, MID, LOW, LOW), // line 20
+		line(LOW, LOW, MID, HIGH, HIGH), // line 21
+		line(HIGH, MID, MID, MID, LOW), // line 22
+		line(LOW, MID, MID, MID, HIGH), // line 23
+		line(HIGH, HIGH, LOW, HIGH, HIGH), // line 24
+		line(LOW, LOW, HIGH, LOW, LOW), // line 25
+		line(HIGH, LOW, MID, LOW, HIGH), // line 26
+		line(LOW, HIGH, MID, HIGH, LOW), // line 27
+		line(HIGH, LOW, HIGH, LOW, HIGH), // line 28
+		line(LOW, HIGH, LOW, HIGH, LOW), // line 29
+		line(HIGH, LOW, LOW, LOW, HIGH), // line 30
+		line(LOW, HIGH, HIGH, HIGH, LOW), // line 31
+		line(HIGH, LOW, MID, HIGH, LOW), // line 32
+		line(LOW, HIGH, MID, LOW, HIGH), // line 33
+		line(MID, HIGH, LOW, HIGH, MID), // line 34
+		line(MID, LOW, HIGH, LOW, MID) // line 35
+	};
+	
+	private final int rows; // rows on the machine the line is for
+	private final int code; // the row in each column as a base rows number, first column first
+	
+	Betline(int rows, int code){
+		this.rows = rows;
+		this.code = code;
+	}
+	
+	public static Betline valueOf(int code){ // returns the line with the specified code.
+		if(code < 0 || code >= Slots.getTotalBetLines()){
+			throw new IllegalArgumentException("Illegal bet line");
+		}
+		return new Betline(ROWS, code);
+	}
+	
+	public static Betline line(int... rows){ // returns the line through the specified rows.
+		if(rows.length != COLUMNS){
+			throw new IllegalArgumentException("Illegal number of rows");
+		}
+		int code = 0;
+		for(int i = 0; i < COLUMNS; i++){
+			if(rows[i] < 0 || rows[i] >= ROWS){
+				throw new IllegalArgumentException("Illegal row");
+			}
+			code = code * ROWS + rows[i];
+		}
+		return new Betline(ROWS, code);
+	}
+	
+	public static Betline get(int index){ // returns the line at the specified spot in the bet lines table.
+		return TABLE[index];
+	}
+	
+	public static int count(){ // returns the number of lines in the bet lines table.
+		return TABLE.length;
+	}
+	
+	static Betline[] table(){ // the bet lines table itself. Shared, so never write to it.
+		return TABLE;
+	}
+	
+	public int getCode(){ // returns the compact code of the line.
+		return code;
+	}
+	
+	public int getRow(int column){ // returns the row picked in the specified column.
+		int c = code;
+		for(int i = COLUMNS - 1; i > column; i--){
+			c /= rows;
+		}
+		return c % rows;
+	}
+	
+	public int getCell(int column){ // returns the board index picked in the specified column.
+		return column * rows + getRow(column);
+	}
+	
+	public int getRows(){ // returns the number of rows on the machine the line is for.
+		return rows;
+	}
+	
+	public boolean equals(Object o){
+		return o instanceof Betline && ((Betline) o).code == code && ((Betline) o).rows == rows;
+	}
+	
+	public int hashCode(){
+		return 31 * code + rows;
+	}
+	
+	public String toString(){ // lists the rows, e.g. "1 1 0 1 1".
+		String s = "";
+		for(int i = 0; i < COLUMNS; i++){
+			s = s + getRow(i) + " ";
+		}
+		return s.trim();
+	}
 }
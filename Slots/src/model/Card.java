@@ -19,6 +19,19 @@ public class Card {
 	public final static int KING = 13;
 	public final static int ACE = 14;
 	
+	// compact card codes. Standard cards are suit * 13 + (rank - 2), the Joker is 52.
+	public final static int JOKER_CODE = 52;
+	public final static int CODES = 53;
+	private final static int RANKS = 13;
+	
+	private final static Card[] CARDS = new Card[CODES]; // one shared instance per code
+	static {
+		for(int code = 0; code < JOKER_CODE; code++){
+			CARDS[code] = new Card(code % RANKS + 2, code / RANKS);
+		}
+		CARDS[JOKER_CODE] = new Card();
+	}
+	
 	private final int suit;
 	private final int rank;
 	
@@ -37,6 +50,12 @@ public class Card {
 	}
 	
 	public Card(int r, int s){ // Create a new card with specified rank and suit.
+		validate(r, s);
+		rank = r;
+		suit = s;
+	}
+	
+	private static void validate(int r, int s){ // make sure the rank and suit form a real card.
 		if (s != SPADES && 
 			s != HEARTS &&
 			s != DIAMONDS &&
@@ -52,8 +71,6 @@ public class Card {
 			r != 1){
 				throw new IllegalArgumentException("Illegal rank");
 		}
-		rank = r;
-		suit = s;
 	}
 	
 	public int getSuit(){ // return the suit of the current card. (int)
@@ -64,6 +81,37 @@ public class Card {
 		return rank;
 	}
 	
+	public int getCode(){ // return the compact code of the current card. (0-52)
+		return code(rank, suit);
+	}
+	
+	public static Card valueOf(int code){ // return the shared card for the specified code.
+		if(code < 0 || code >= CODES){
+			throw new IllegalArgumentException("Illegal card code");
+		}
+		return CARDS[code];
+	}
+	
+	public static Card valueOf(int r, int s){ // return the shared card for the specified rank and suit.
+		validate(r, s);
+		return CARDS[code(r, s)];
+	}
+	
+	static int code(int r, int s){ // return the compact code for the specified rank and suit. Doesn't check them; valueOf does.
+		if(s == JOKER){
+			return JOKER_CODE;
+		}
+		return s * RANKS + (r == 1 ? ACE : r) - 2; // Aces may be built low
+	}
+	
+	public static int rankOf(int code){ // return the rank of a card code. Jokers are rank 1.
+		return code == JOKER_CODE ? 1 : code % RANKS + 2;
+	}
+	
+	public static int suitOf(int code){ // return the suit of a card code.
+		return code == JOKER_CODE ? JOKER : code / RANKS;
+	}
+	
 	public String getSuitAsString(){ // return the suit of the current card as a String.
 		switch(suit){
 		case SPADES: return "S";
@@ -105,12 +153,16 @@ public class Card {
 		}
 	}
 	
-	public Card random(){ // creates a random card and returns it.
-		int randS = (int)(Math.random()*5);
+	public Card random(){ // picks a random card and returns it.
+		return random(RandomSource.threadLocal());
+	}
+	
+	public static Card random(RandomSource rng){ // same as above, drawing from the specified source.
+		int randS = rng.nextInt(5);
 		if (randS == JOKER){
-			return new Card(); // Don't need to calculate rank if Joker.
+			return CARDS[JOKER_CODE]; // Don't need to calculate rank if Joker.
 		}
-		int randR = (int)(Math.random()*13 + 2);
-		return new Card(randR,randS);
+		int randR = rng.nextInt(13) + 2;
+		return CARDS[code(randR,randS)];
 	}
 }
@@ -0,0 +1,48 @@
+/**
+ * ConsoleSpinListener Class - prints every spin, off the game's thread.
+ */
+package model;
+
+import java.io.PrintStream;
+
+/**
+ * @author retro
+ *
+ */
+public class ConsoleSpinListener implements SpinListener {
+	private final PrintStream out;
+	
+	public ConsoleSpinListener(){ // prints to System.out.
+		this(System.out);
+	}
+	
+	public ConsoleSpinListener(PrintStream out){
+		this.out = out;
+	}
+	
+	public void onSpin(SpinEvent e){ // prints the board and every winning line.
+		if(e.getStatus() == SpinResponse.INSUFFICIENT_FUNDS){
+			out.println("Insufficient funds");
+			return;
+		}
+		String s = "";
+		for(int row = 0; row < e.getRows(); row++){ // the board the way it looks on the reels
+			for(int col = 0; col < Slots.getColumns(); col++){
+				s = s + String.format("%-4s", e.getCard(col, row));
+			}
+			s = s.trim() + "\n";
+		}
+		for(int i = 0; i < e.getLineCount(); i++){
+			int type = e.getHandClass(i);
+			if(type != Slots.HIGH_CARD){
+				s = s + (e.isWays() ? "Way " : "Line ") + (i + 1) + ": " + Slots.handName(type) + " pays $" +
+						e.getLinePayout(i) + "\n";
+			}
+		}
+		if(e.getJackpot() > 0){
+			s = s + "JACKPOT! $" + e.getJackpot() + "\n";
+		}
+		s = s + "You won $" + e.getPayout() + ". Your balance is $" + e.getBalance();
+		out.println(s);
+	}
+}
@@ -0,0 +1,172 @@
+/**
+ * Geometry Class - the shape of a slot machine: its rows, columns and bet lines table.
+ */
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * @author retro
+ *
+ */
+public final class Geometry {
+	// Columns are fixed at 5 since every line is a poker hand. Rows may vary.
+	public final static int MIN_ROWS = 1;
+	public final static int MAX_ROWS = 5;
+	private final static int COLUMNS = 5;
+	private final static int LINES_PER_ROW = 10; // generated tables hold 10 lines per row
+	
+	// one shared, immutable instance per shape, built once.
+	private final static Geometry[] SHAPES = new Geometry[MAX_ROWS + 1];
+	static {
+		for(int r = MIN_ROWS; r <= MAX_ROWS; r++){
+			SHAPES[r] = new Geometry(r);
+		}
+	}
+	
+	public final static Geometry STANDARD = valueOf(Slots.getRows()); // 3x5 with the classic 35 lines
+	
+	private final int rows;
+	private final int ways; // every row combination, rows^5
+	private final Betline[] lines; // the bet lines table
+	private final int[] cells; // board index of every card on every line, for the spin loop
+	private final int[][] read; // for each number of lines played, the board indexes those lines read
+	private final int[][] unread; // and the rest of the board
+	
+	private Geometry(int rows){
+		this.rows = rows;
+		int w = 1;
+		for(int i = 0; i < COLUMNS; i++){
+			w *= rows;
+		}
+		ways = w;
+		lines = rows == Slots.getRows() ? Betline.table() : generate(rows, ways);
+		cells = new int[lines.length * COLUMNS];
+		for(int i = 0; i < lines.length; i++){
+			for(int j = 0; j < COLUMNS; j++){
+				cells[i * COLUMNS + j] = lines[i].getCell(j);
+			}
+		}
+		read = new int[lines.length + 1][];
+		unread = new int[lines.length + 1][];
+		boolean[] seen = new boolean[size()];
+		int[] order = new int[size()]; // cells in the order the lines first read them
+		int n = 0;
+		for(int i = 0; i <= lines.length; i++){
+			if(i > 0){
+				for(int j = 0; j < COLUMNS; j++){
+					int cell = cells[(i - 1) * COLUMNS + j];
+					if(!seen[cell]){
+						seen[cell] = true;
+						order[n++] = cell;
+					}
+				}
+			}
+			read[i] = Arrays.copyOf(order, n);
+			unread[i] = new int[size() - n];
+			for(int cell = 0, k = 0; cell < size(); cell++){
+				if(!seen[cell]){
+					unread[i][k++] = cell;
+				}
+			}
+		}
+	}
+	
+	public static Geometry valueOf(int rows){ // returns the machine with the specified number of rows.
+		if(rows < MIN_ROWS || rows > MAX_ROWS){
+			throw new IllegalArgumentException("Illegal number of rows");
+		}
+		return SHAPES[rows];
+	}
+	
+	private static Betline[] generate(int rows, int total){ // builds a line table for a machine without a hand-written one.
+		// Lines step at most one row between columns, so they read like the classic ones. The
+		// straightest come first, then the symmetric ones, then those nearest the middle.
+		ArrayList<Betline> found = new ArrayList<>();
+		ArrayList<Integer> order = new ArrayList<>();
+		int[] r = new int[COLUMNS];
+		for(int code = 0; code < total; code++){
+			int c = code;
+			for(int i = COLUMNS - 1; i >= 0; i--){ // first column in the most significant digit
+				r[i] = c % rows;
+				c /= rows;
+			}
+			int bends = 0;
+			int spread = 0;
+			boolean smooth = true;
+			for(int i = 0; i < COLUMNS; i++){
+				if(i > 0){
+					smooth &= Math.abs(r[i] - r[i - 1]) <= 1;
+					if(r[i] != r[i - 1]){
+						bends++;
+					}
+				}
+				spread += Math.abs(2 * r[i] - (rows - 1)); // distance from the middle, doubled
+			}
+			if(smooth){
+				boolean symmetric = r[0] == r[4] && r[1] == r[3];
+				found.add(new Betline(rows, code));
+				order.add((bends * 2 + (symmetric ? 0 : 1)) * 1024 + spread); // spread never reaches 1024
+			}
+		}
+		Integer[] index = new Integer[found.size()];
+		for(int i = 0; i < index.length; i++){
+			index[i] = i;
+		}
+		Arrays.sort(index, (a, b) -> Integer.compare(order.get(a), order.get(b))); // stable, so ties keep code order
+		Betline[] table = new Betline[Math.min(index.length, LINES_PER_ROW * rows)];
+		for(int i = 0; i < table.length; i++){
+			table[i] = found.get(index[i]);
+		}
+		return table;
+	}
+	
+	public int getRows(){ // returns the number of rows.
+		return rows;
+	}
+	
+	public int getColumns(){ // returns the number of columns. Always 5 as a poker hand is 5 cards.
+		return COLUMNS;
+	}
+	
+	public int size(){ // returns the number of positions on the board.
+		return rows * COLUMNS;
+	}
+	
+	public int getWays(){ // returns the number of possible bet lines, one per row combination.
+		return ways;
+	}
+	
+	public int getLineCount(){ // returns the number of lines in the bet lines table.
+		return lines.length;
+	}
+	
+	public Betline getLine(int index){ // returns the line at the specified spot in the bet lines table.
+		return lines[index];
+	}
+	
+	public int getJokers(){ // returns the Jokers in a deck for this machine. Enough for a full board of them.
+		return size() + COLUMNS;
+	}
+	
+	int maxResults(){ // returns the most lines a single spin can score.
+		return Math.max(lines.length, ways);
+	}
+	
+	int[] cells(){ // the flattened line table. Shared, so never write to it.
+		return cells;
+	}
+	
+	int[] read(int lines){ // board indexes read by the first lines in the table. Shared, so never write to it.
+		return read[lines];
+	}
+	
+	int[] unread(int lines){ // board indexes not read by the first lines in the table. Shared, so never write to it.
+		return unread[lines];
+	}
+	
+	public String toString(){ // e.g. "3x5".
+		return rows + "x" + COLUMNS;
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * HandBatch Class - many five card hands stored lane by lane, for scoring in bulk.
+ */
+package model;
+
+/**
+ * @author retro
+ *
+ */
+public final class HandBatch {
+	// Struct of arrays: card i of every hand sits in the same lane, already turned into a rank
+	// digit and a suit bit. Scoring then runs the same few operations down every lane with no
+	// branches and no per hand lookups, which the JIT can unroll and vectorize.
+	private final static int HAND_SIZE = 5;
+	
+	final byte[][] ranks = new byte[HAND_SIZE][]; // rank digit of card i of each hand. The Joker is 13
+	final byte[][] suits = new byte[HAND_SIZE][]; // suit bit of card i of each hand. 0 for the Joker
+	final int[] keys; // scratch: rank key and flush bit of each hand
+	final int[] results; // packed value of each hand, after HandEvaluator.evaluate(batch)
+	private int size = 0;
+	
+	public HandBatch(int capacity){
+		if(capacity < 1){
+			throw new IllegalArgumentException("Illegal batch size");
+		}
+		for(int i = 0; i < HAND_SIZE; i++){
+			ranks[i] = new byte[capacity];
+			suits[i] = new byte[capacity];
+		}
+		keys = new int[capacity];
+		results = new int[capacity];
+	}
+	
+	public int add(int a, int b, int c, int d, int e){ // adds a hand, given card codes. returns its index.
+		if(size == results.length){
+			throw new IllegalArgumentException("Batch is full");
+		}
+		set(size, 0, a);
+		set(size, 1, b);
+		set(size, 2, c);
+		set(size, 3, d);
+		set(size, 4, e);
+		return size++;
+	}
+	
+	private void set(int hand, int card, int code){
+		ranks[card][hand] = (byte) HandEvaluator.digit(code);
+		suits[card][hand] = (byte) HandEvaluator.suitBit(code);
+	}
+	
+	public void clear(){ // empties the batch for reuse.
+		size = 0;
+	}
+	
+	public int size(){ // returns the number of hands in the batch.
+		return size;
+	}
+	
+	public int capacity(){
+		return results.length;
+	}
+	
+	public int getResult(int hand){ // returns the packed value of the specified hand, once evaluated.
+		return results[hand];
+	}
+}
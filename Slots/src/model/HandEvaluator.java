@@ -0,0 +1,175 @@
+/**
+ * HandEvaluator Class - scores five card poker hands (Jokers wild) with a single table lookup.
+ */
+package model;
+
+/**
+ * @author retro
+ *
+ */
+public final class HandEvaluator {
+	// every card maps to a rank digit: 2 through Ace are 0-12, the Joker is 13.
+	private final static int JOKER_DIGIT = 13;
+	private final static int DIGITS = 14;
+	private final static int HAND_SIZE = 5;
+	private final static int RANK_KEYS = DIGITS * DIGITS * DIGITS * DIGITS * DIGITS; // 14^5 rank keys
+	
+	// packed results keep the hand type in the high bits and the win rank in the low nibble.
+	private final static int RANK_BITS = 4;
+	private final static int RANK_MASK = (1 << RANK_BITS) - 1;
+	
+	// indexed by (rank key * 2 + flush bit). A zero entry means no winning hand.
+	private final static char[] TABLE = new char[RANK_KEYS * 2];
+	
+	// per card code lookups so the hot path never touches a Card object.
+	private final static int[] DIGIT = new int[Card.CODES];
+	private final static int[] SUIT_BIT = new int[Card.CODES];
+	
+	static {
+		for(int code = 0; code < Card.CODES; code++){
+			if(code == Card.JOKER_CODE){ // Jokers match every suit.
+				DIGIT[code] = JOKER_DIGIT;
+				SUIT_BIT[code] = 0;
+			} else {
+				DIGIT[code] = Card.rankOf(code) - 2;
+				SUIT_BIT[code] = 1 << Card.suitOf(code);
+			}
+		}
+		
+		int[] counts = new int[DIGITS];
+		for(int key = 0; key < RANK_KEYS; key++){ // decode every rank key and score it once.
+			for(int i = 0; i < DIGITS; i++){
+				counts[i] = 0;
+			}
+			int k = key;
+			for(int i = 0; i < HAND_SIZE; i++){
+				counts[k % DIGITS]++;
+				k /= DIGITS;
+			}
+			TABLE[key * 2] = (char) classify(counts, false);
+			TABLE[key * 2 + 1] = (char) classify(counts, true);
+		}
+	}
+	
+	private HandEvaluator(){ // static tables only.
+	}
+	
+	public static int evaluate(Card a, Card b, Card c, Card d, Card e){ // returns the packed value of the hand.
+		return evaluate(a.getCode(), b.getCode(), c.getCode(), d.getCode(), e.getCode());
+	}
+	
+	public static int evaluate(int a, int b, int c, int d, int e){ // same as above, given card codes.
+		int key = DIGIT[a];
+		key = key * DIGITS + DIGIT[b];
+		key = key * DIGITS + DIGIT[c];
+		key = key * DIGITS + DIGIT[d];
+		key = key * DIGITS + DIGIT[e];
+		int suits = SUIT_BIT[a] | SUIT_BIT[b] | SUIT_BIT[c] | SUIT_BIT[d] | SUIT_BIT[e];
+		return TABLE[key * 2 + flushBit(suits)];
+	}
+	
+	public static void evaluate(HandBatch batch){ // scores every hand in the batch.
+		// Two passes. The first is plain arithmetic down the lanes: the rank key, the suit
+		// mask and the flush bit, with no branches. The second reads the table once per hand.
+		int n = batch.size();
+		byte[] r0 = batch.ranks[0], r1 = batch.ranks[1], r2 = batch.ranks[2], r3 = batch.ranks[3], r4 = batch.ranks[4];
+		byte[] s0 = batch.suits[0], s1 = batch.suits[1], s2 = batch.suits[2], s3 = batch.suits[3], s4 = batch.suits[4];
+		int[] keys = batch.keys;
+		int[] results = batch.results;
+		for(int i = 0; i < n; i++){
+			int key = (((r0[i] * DIGITS + r1[i]) * DIGITS + r2[i]) * DIGITS + r3[i]) * DIGITS + r4[i];
+			int suits = s0[i] | s1[i] | s2[i] | s3[i] | s4[i];
+			int flush = ((suits & (suits - 1)) - 1) >>> 31; // 1 when at most one bit is set
+			keys[i] = key * 2 + flush;
+		}
+		for(int i = 0; i < n; i++){
+			results[i] = TABLE[keys[i]];
+		}
+	}
+	
+	static int extend(int key, int code){ // adds a card to a partial rank key.
+		return key * DIGITS + DIGIT[code];
+	}
+	
+	static int digit(int code){ // rank digit of a card code. 13 for the Joker.
+		return DIGIT[code];
+	}
+	
+	static int suitBit(int code){ // suit bit of a card code. 0 for the Joker.
+		return SUIT_BIT[code];
+	}
+	
+	static int lookup(int key, int suits){ // packed value of a complete rank key and suit mask.
+		return TABLE[key * 2 + flushBit(suits)];
+	}
+	
+	public static int handClass(int packed){ // hand type of a packed value. HIGH_CARD if no win.
+		return (packed >>> RANK_BITS) - 1;
+	}
+	
+	public static int winRank(int packed){ // winning card rank of a packed value. 0 if not applicable.
+		return packed & RANK_MASK;
+	}
+	
+	static int pack(int type, int winRank){ // combines a hand type and win rank into a packed value.
+		return ((type + 1) << RANK_BITS) | winRank;
+	}
+	
+	static int flushBit(int suits){ // 1 if no more than one suit is present (Jokers carry no suit).
+		return (suits & (suits - 1)) == 0 ? 1 : 0;
+	}
+	
+	private static int classify(int[] counts, boolean flush){ // scores a hand given its rank counts.
+		int jokers = counts[JOKER_DIGIT];
+		if(jokers == HAND_SIZE){ // automatic royal flush
+			return pack(Slots.ROYAL_FLUSH, 0);
+		}
+		int distinct = 0;
+		int pairs = 0;
+		int maxCount = 0;
+		int topRank = 0; // rank of the largest group, highest rank wins ties
+		int low = -1;
+		int high = -1;
+		for(int i = 0; i < JOKER_DIGIT; i++){ // walk the ranks from 2 up to Ace
+			if(counts[i] > 0){
+				distinct++;
+				if(low < 0){
+					low = i;
+				}
+				high = i;
+				if(counts[i] == 2){
+					pairs++;
+				}
+				if(counts[i] >= maxCount){
+					maxCount = counts[i];
+					topRank = i + 2;
+				}
+			}
+		}
+		// Jokers fill any gaps, so distinct ranks spanning at most five spots make a straight.
+		// Aces are always high.
+		boolean straight = distinct == HAND_SIZE - jokers && high - low < HAND_SIZE;
+		
+		if(flush && straight && low + 2 >= 10){
+			return pack(Slots.ROYAL_FLUSH, 0);
+		} else if(flush && straight){
+			return pack(Slots.STRAIGHT_FLUSH, 0);
+		} else if(maxCount + jokers >= 4){
+			return pack(Slots.FOUR_OF_A_KIND, topRank);
+		} else if((jokers == 0 && maxCount == 3 && pairs == 1) ||
+				  (jokers == 1 && pairs == 2)){ // dealt full house, or two pair and a Joker
+			return pack(Slots.FULL_HOUSE, topRank);
+		} else if(flush){
+			return pack(Slots.FLUSH, 0);
+		} else if(straight){
+			return pack(Slots.STRAIGHT, 0);
+		} else if(maxCount + jokers >= 3){
+			return pack(Slots.THREE_OF_A_KIND, topRank);
+		} else if(jokers == 0 && pairs == 2){ // Jokers would make this at least three of a kind
+			return pack(Slots.TWO_PAIR, topRank);
+		} else if(maxCount + jokers >= 2){
+			return pack(Slots.ONE_PAIR, topRank);
+		}
+		return 0; // no winning hand
+	}
+}
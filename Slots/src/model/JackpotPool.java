@@ -0,0 +1,67 @@
+/**
+ * JackpotPool Class - a progressive jackpot fed by every bet and won with a royal flush.
+ */
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author retro
+ *
+ */
+public class JackpotPool {
+	// Contributions go into a striped counter, so games on any number of threads can feed
+	// the pool without contending. They're kept in ten-thousandths of a dollar, so a small
+	// bet's share isn't rounded away. The pool is whatever has been contributed since the
+	// last award; an award moves the "already won" mark up to that total with one CAS,
+	// so two royals racing for the pool can never both win the same money.
+	private final static long SCALE = 10000; // basis points
+	
+	private final int rate; // basis points of every bet that go into the pool
+	private final int seed; // what the pool starts at, and resets to after every award
+	private final LongAdder contributed = new LongAdder(); // in SCALE units
+	private final AtomicLong awarded = new AtomicLong(); // SCALE units already won
+	private final LongAdder awards = new LongAdder();
+	
+	public JackpotPool(int rate, int seed){ // rate is in basis points: 100 puts 1% of every bet in the pool.
+		if(rate < 0 || rate > SCALE || seed < 0){
+			throw new IllegalArgumentException("Illegal jackpot");
+		}
+		this.rate = rate;
+		this.seed = seed;
+	}
+	
+	public void contribute(int wager){ // feeds the pool its share of a bet.
+		contributed.add((long) wager * rate);
+	}
+	
+	public int claim(){ // awards the pool to the caller and resets it. returns the amount won.
+		while(true){
+			long from = awarded.get();
+			long to = contributed.sum(); // never less than from: cells only grow, and from came from an earlier sum
+			long won = (to - from) / SCALE; // whole dollars only. The rest stays for the next winner
+			long next = from + won * SCALE;
+			if(awarded.compareAndSet(from, next)){
+				awards.increment();
+				return (int) Math.min(Integer.MAX_VALUE, seed + won);
+			}
+		}
+	}
+	
+	public long getValue(){ // returns what the pool would pay right now.
+		return seed + (contributed.sum() - awarded.get()) / SCALE;
+	}
+	
+	public long getAwards(){ // returns the number of times the pool has been won.
+		return awards.sum();
+	}
+	
+	public int getRate(){
+		return rate;
+	}
+	
+	public int getSeed(){
+		return seed;
+	}
+}
@@ -0,0 +1,25 @@
+/**
+ * JournalSpinListener Class - writes published spins to a SpinJournal, off the game's thread.
+ */
+package model;
+
+/**
+ * @author retro
+ *
+ */
+public class JournalSpinListener implements SpinListener {
+	// Only sees what the ring delivers, so spins dropped by a full ring are missing from the
+	// journal; use getDropped() on the ring to check. For an audit trail that can never miss
+	// a spin, give the game the journal itself with Slots.setJournal().
+	private final SpinJournal journal;
+	
+	public JournalSpinListener(SpinJournal journal){ // the journal is written only by the listener's thread.
+		this.journal = journal;
+	}
+	
+	public void onSpin(SpinEvent e){
+		if(e.getStatus() == SpinResponse.OK){
+			journal.append(e);
+		}
+	}
+}
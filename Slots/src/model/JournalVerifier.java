@@ -0,0 +1,149 @@
+/**
+ * JournalVerifier Class - replays spin journals through the game's scoring and flags wrong payouts.
+ */
+package model;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.stream.Stream;
+
+/**
+ * @author retro
+ *
+ */
+public class JournalVerifier {
+	private final static int CHUNK = 1 << 16; // records replayed by a single task
+	
+	public static void main(String[] args) throws IOException { // usage: JournalVerifier <directory> [paytable file]
+		if(args.length < 1){
+			System.out.println("usage: JournalVerifier <journal directory> [paytable file]");
+			return;
+		}
+		Paytable p = args.length > 1 ? Paytable.load(Paths.get(args[1])) : Paytable.STANDARD;
+		long start = System.nanoTime();
+		AuditReport report = verify(Paths.get(args[0]), p);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(report);
+		System.out.println(String.format("%.2f seconds, %.0f records per second", seconds, report.getRecords() / seconds));
+	}
+	
+	public static AuditReport verify(Path directory) throws IOException { // replays every segment in the directory.
+		return verify(directory, Paytable.STANDARD);
+	}
+	
+	public static AuditReport verify(Path directory, Paytable paytable) throws IOException { // same as above, paying from the specified paytable.
+		ArrayList<Path> files = new ArrayList<>();
+		try (Stream<Path> list = Files.list(directory)) {
+			list.filter(p -> p.toString().endsWith(SpinJournal.SUFFIX)).sorted().forEach(files::add);
+		}
+		// Segments are mapped read only and cut into chunks, and the chunks are replayed in
+		// parallel. Each chunk only reads its own slice of the mapping.
+		ArrayList<Chunk> chunks = new ArrayList<>();
+		for(Path file : files){
+			MappedByteBuffer segment;
+			try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+				segment = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()); // stays valid after closing
+			}
+			long count = checkHeader(file, segment);
+			Geometry g = Geometry.valueOf(segment.getShort(8) / Slots.getColumns());
+			for(long i = 0; i < count; i += CHUNK){
+				chunks.add(new Chunk(file, segment, g, paytable, (int) i, (int) Math.min(count, i + CHUNK)));
+			}
+		}
+		return chunks.parallelStream().map(Chunk::replay).reduce((a, b) -> {
+			a.merge(b); // every report here is a fresh one from replay, so it's safe to fold into
+			return a;
+		}).orElseGet(AuditReport::new);
+	}
+	
+	private static long checkHeader(Path file, MappedByteBuffer segment){ // returns the number of records.
+		if(segment.capacity() < SpinJournal.HEADER_SIZE ||
+		   segment.getInt(0) != SpinJournal.MAGIC ||
+		   segment.getShort(4) < 1 || segment.getShort(4) > SpinJournal.VERSION){
+			throw new IllegalArgumentException(file + " is not a spin journal");
+		}
+		int version = segment.getShort(4);
+		int boardSize = segment.getShort(8);
+		int rows = boardSize / Slots.getColumns();
+		if(boardSize % Slots.getColumns() != 0 || rows < Geometry.MIN_ROWS || rows > Geometry.MAX_ROWS ||
+		   segment.getShort(6) != SpinJournal.recordSize(version, boardSize)){
+			throw new IllegalArgumentException(file + " was written for an unknown machine");
+		}
+		long count = segment.getLong(SpinJournal.COUNT_OFFSET);
+		if(count < 0 || SpinJournal.HEADER_SIZE + count * SpinJournal.recordSize(version, boardSize) > segment.capacity()){
+			throw new IllegalArgumentException(file + " has a bad record count");
+		}
+		return count;
+	}
+	
+	private static class Chunk {
+		private final Path file;
+		private final MappedByteBuffer segment;
+		private final Geometry geometry; // shape of the machine that wrote the segment
+		private final Paytable paytable; // what the machine paid
+		private final int from;
+		private final int to;
+		
+		Chunk(Path file, MappedByteBuffer segment, Geometry geometry, Paytable paytable, int from, int to){
+			this.file = file;
+			this.segment = segment;
+			this.geometry = geometry;
+			this.paytable = paytable;
+			this.from = from;
+			this.to = to;
+		}
+		
+		AuditReport replay(){ // rescores every record in the chunk.
+			AuditReport report = new AuditReport();
+			byte[] board = new byte[geometry.size()];
+			int[] results = new int[geometry.maxResults()];
+			int version = segment.getShort(4);
+			int recordSize = SpinJournal.recordSize(version, board.length);
+			int boardOffset = SpinJournal.boardOffset(version);
+			for(int r = from; r < to; r++){
+				int at = SpinJournal.HEADER_SIZE + r * recordSize;
+				int bet = segment.getInt(at + 24);
+				int recorded = segment.getInt(at + 28);
+				int lines = segment.getShort(at + 32);
+				boolean ways = (segment.get(at + 34) & SpinJournal.FLAG_WAYS) != 0;
+				boolean valid = true;
+				for(int i = 0; i < board.length; i++){
+					board[i] = segment.get(at + boardOffset + i);
+					valid &= board[i] >= 0 && board[i] < Card.CODES;
+				}
+				if(!valid || lines < 1 || lines > results.length || (!ways && lines > geometry.getLineCount()) ||
+				   (ways && lines != geometry.getWays())){
+					report.mismatch(file.getFileName() + " record " + r + " (unreadable)", recorded, 0);
+					continue;
+				}
+				int jackpot = version == 1 ? 0 : segment.getInt(at + SpinJournal.JACKPOT_OFFSET);
+				long expected = (long) bet * Slots.score(geometry, paytable, board, lines, ways, results);
+				boolean royal = false;
+				for(int i = 0; i < lines; i++){
+					int type = HandEvaluator.handClass(results[i]);
+					if(type != Slots.HIGH_CARD){
+						report.addHand(type);
+					}
+					royal |= type == Slots.ROYAL_FLUSH;
+				}
+				if(jackpot < 0 || (jackpot > 0 && !royal)){ // only a royal wins the jackpot
+					report.mismatch(file.getFileName() + " record " + r + " (jackpot)", jackpot, 0);
+				} else if(jackpot > 0){
+					report.addJackpot(jackpot);
+					expected += jackpot;
+				}
+				report.add((long) bet * lines, expected);
+				if(expected != recorded){
+					report.mismatch(file.getFileName() + " record " + r, recorded, expected);
+				}
+			}
+			return report;
+		}
+	}
+}
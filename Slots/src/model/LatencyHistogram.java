@@ -0,0 +1,113 @@
+/**
+ * LatencyHistogram Class - a low overhead, thread safe histogram of durations in nanoseconds.
+ */
+package model;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author retro
+ *
+ */
+public class LatencyHistogram {
+	// Buckets are log-linear: every power of two is split into four, so a recorded value is
+	// never more than 25% off. Each bucket is a striped counter, so threads don't fight over
+	// the same cache line.
+	private final static int SUB_BITS = 2;
+	private final static int SUB_BUCKETS = 1 << SUB_BITS;
+	private final static int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+	
+	private final LongAdder[] buckets = new LongAdder[BUCKETS];
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+	
+	public LatencyHistogram(){
+		for(int i = 0; i < BUCKETS; i++){
+			buckets[i] = new LongAdder();
+		}
+	}
+	
+	public void record(long nanos){ // adds one duration.
+		if(nanos < 0){
+			nanos = 0;
+		}
+		buckets[index(nanos)].increment();
+		sum.add(nanos);
+		max.accumulate(nanos);
+	}
+	
+	public Snapshot snapshot(){ // copies the current counts. Not atomic across buckets, but never torn within one.
+		long[] counts = new long[BUCKETS];
+		for(int i = 0; i < BUCKETS; i++){
+			counts[i] = buckets[i].sum();
+		}
+		return new Snapshot(counts, sum.sum(), max.get());
+	}
+	
+	static int index(long v){ // bucket holding the specified value.
+		if(v < SUB_BUCKETS){
+			return (int) v;
+		}
+		int e = 63 - Long.numberOfLeadingZeros(v); // highest bit set
+		return (e - SUB_BITS + 1) * SUB_BUCKETS + (int) ((v >>> (e - SUB_BITS)) & (SUB_BUCKETS - 1));
+	}
+	
+	static long lowest(int index){ // smallest value that lands in the specified bucket.
+		if(index < SUB_BUCKETS){
+			return index;
+		}
+		int e = index / SUB_BUCKETS + SUB_BITS - 1;
+		return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (e - SUB_BITS);
+	}
+	
+	public final static class Snapshot {
+		private final long[] counts;
+		private final long count;
+		private final long sum;
+		private final long max;
+		
+		Snapshot(long[] counts, long sum, long max){
+			this.counts = counts;
+			long n = 0;
+			for(long c : counts){
+				n += c;
+			}
+			this.count = n;
+			this.sum = sum;
+			this.max = max;
+		}
+		
+		public long getCount(){ // returns the number of durations recorded.
+			return count;
+		}
+		
+		public double getMean(){ // returns the mean duration in nanoseconds.
+			return count == 0 ? 0 : (double) sum / count;
+		}
+		
+		public long getMax(){ // returns the longest duration in nanoseconds.
+			return max;
+		}
+		
+		public long getPercentile(double p){ // returns the duration below which the fraction p of them fall.
+			if(count == 0){
+				return 0;
+			}
+			long rank = (long) Math.ceil(p * count);
+			long seen = 0;
+			for(int i = 0; i < counts.length; i++){
+				seen += counts[i];
+				if(seen >= Math.max(rank, 1)){
+					return Math.min(max, i + 1 < BUCKETS ? lowest(i + 1) - 1 : Long.MAX_VALUE); // top of the bucket
+				}
+			}
+			return max;
+		}
+		
+		public String toString(){
+			return String.format("count %d  mean %.0fns  p50 %dns  p99 %dns  p999 %dns  max %dns", count, getMean(),
+					getPercentile(0.5), getPercentile(0.99), getPercentile(0.999), max);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * LoadGenerator Class - drives a SpinServer with pipelined spins and reports throughput and latency.
+ */
+package model;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * @author retro
+ *
+ */
+public class LoadGenerator {
+	private final static int BUFFER_SIZE = 1 << 16;
+	
+	private final InetSocketAddress address;
+	private final int connections;
+	private final int spins; // spins sent on each connection
+	private final int window; // requests in flight on each connection
+	private final int betLines; // 0 for every way
+	
+	public static void main(String[] args) throws Exception {
+		// usage: LoadGenerator [host] [port] [connections] [spins per connection] [window] [bet lines]
+		String host = args.length > 0 ? args[0] : "localhost";
+		int port = args.length > 1 ? Integer.parseInt(args[1]) : 7777;
+		int connections = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		int spins = args.length > 3 ? Integer.parseInt(args[3]) : 1000000;
+		int window = args.length > 4 ? Integer.parseInt(args[4]) : 64;
+		int lines = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+		LoadGenerator gen = new LoadGenerator(new InetSocketAddress(host, port), connections, spins, window, lines);
+		System.out.println(gen.run());
+	}
+	
+	public LoadGenerator(InetSocketAddress address, int connections, int spins, int window, int betLines){
+		// a whole window of requests goes out in one buffer. Responses are read as they come,
+		// so that buffer only needs to hold the biggest one.
+		if(connections < 1 || spins < 1 || window < 1 ||
+		   (long) window * SpinProtocol.REQUEST_SIZE > BUFFER_SIZE ||
+		   BUFFER_SIZE < SpinProtocol.maxResponseSize(Geometry.valueOf(Geometry.MAX_ROWS))){
+			throw new IllegalArgumentException("Illegal load settings");
+		}
+		this.address = address;
+		this.connections = connections;
+		this.spins = spins;
+		this.window = window;
+		this.betLines = betLines;
+	}
+	
+	public String run() throws Exception { // runs every connection to completion and reports the results.
+		long[][] latencies = new long[connections][];
+		Thread[] threads = new Thread[connections];
+		Throwable[] failure = new Throwable[1];
+		long start = System.nanoTime();
+		for(int i = 0; i < connections; i++){
+			final int c = i;
+			threads[i] = new Thread(() -> {
+				try {
+					latencies[c] = drive();
+				} catch (Throwable e){ // anything, so a dead connection fails the run instead of leaving a hole
+					failure[0] = e;
+				}
+			}, "load-" + i);
+			threads[i].start();
+		}
+		for(Thread t : threads){
+			t.join();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		if(failure[0] instanceof Error){
+			throw (Error) failure[0];
+		} else if(failure[0] != null){
+			throw (Exception) failure[0];
+		}
+		long[] all = new long[connections * spins];
+		for(int i = 0; i < connections; i++){
+			System.arraycopy(latencies[i], 0, all, i * spins, spins);
+		}
+		Arrays.sort(all);
+		String s = String.format("%d connections, window %d, %d spins in %.2f seconds%n",
+				connections, window, all.length, seconds);
+		s = s + String.format("Throughput: %.0f spins per second%n", all.length / seconds);
+		s = s + String.format("Latency (us): p50 %.1f  p99 %.1f  p999 %.1f  max %.1f",
+				percentile(all, 0.5), percentile(all, 0.99), percentile(all, 0.999), all[all.length - 1] / 1e3);
+		return s;
+	}
+	
+	private long[] drive() throws IOException { // sends every spin on one connection, window requests at a time.
+		long[] latency = new long[spins];
+		long[] sentAt = new long[window];
+		ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		try (SocketChannel ch = SocketChannel.open(address)) {
+			ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			int sent = 0;
+			int received = 0;
+			while(received < spins){
+				int first = sent;
+				while(sent < spins && sent - received < window){ // top the window back up
+					SpinProtocol.writeRequest(out, sent, 1, betLines);
+					sent++;
+				}
+				if(sent > first){
+					out.flip();
+					while(out.hasRemaining()){
+						ch.write(out);
+					}
+					out.clear();
+					long now = System.nanoTime();
+					for(int i = first; i < sent; i++){
+						sentAt[i % window] = now;
+					}
+				}
+				if(ch.read(in) < 0){
+					throw new IOException("Server closed the connection");
+				}
+				in.flip();
+				long now = System.nanoTime();
+				while(in.remaining() >= SpinProtocol.RESPONSE_HEADER &&
+					  in.remaining() >= SpinProtocol.responseSize(in)){
+					int size = SpinProtocol.responseSize(in);
+					int tag = in.getInt(in.position());
+					latency[received++] = now - sentAt[tag % window];
+					in.position(in.position() + size);
+				}
+				in.compact();
+			}
+		}
+		return latency;
+	}
+	
+	private static double percentile(long[] sorted, double p){ // returns the percentile in microseconds.
+		int i = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+		return sorted[Math.max(i, 0)] / 1e3;
+	}
+}
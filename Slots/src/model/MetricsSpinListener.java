@@ -0,0 +1,35 @@
+/**
+ * MetricsSpinListener Class - counts published spins into a SlotsMetrics, off the game's thread.
+ */
+package model;
+
+/**
+ * @author retro
+ *
+ */
+public class MetricsSpinListener implements SpinListener {
+	// Counts outcomes only; spin timings need Slots.setMetrics(), since they're taken on the
+	// game's thread.
+	private final SlotsMetrics metrics;
+	private final int[] handTally = new int[Slots.HAND_TYPES]; // only used on the listener's thread
+	
+	public MetricsSpinListener(SlotsMetrics metrics){
+		this.metrics = metrics;
+	}
+	
+	public void onSpin(SpinEvent e){
+		if(e.getStatus() != SpinResponse.OK){
+			return;
+		}
+		for(int i = 0; i < handTally.length; i++){
+			handTally[i] = 0;
+		}
+		for(int i = 0; i < e.getLineCount(); i++){
+			int type = e.getHandClass(i);
+			if(type != Slots.HIGH_CARD){
+				handTally[type]++;
+			}
+		}
+		metrics.recordOutcome(e.getWager(), e.getPayout(), handTally);
+	}
+}
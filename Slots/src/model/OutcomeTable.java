@@ -0,0 +1,310 @@
+/**
+ * OutcomeTable Class - picks a one line spin's hand first, then lays out a board that shows it.
+ */
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * @author retro
+ *
+ */
+public final class OutcomeTable {
+	// Every 5 card hand from the deck is counted once, in patterns: the ranks in the hand, its
+	// Jokers, and which cards share a suit, but not which suits they are. A pattern is picked
+	// with an integer alias table (two random numbers), then one more number picks both the
+	// suits it gets and the order of its cards along the line. Each pattern is weighted by the
+	// hands it stands for, so hands come out with exactly the odds of dealing them.
+	private final static int RANKS = 13;
+	private final static int SUITS = 4;
+	private final static int HAND_SIZE = 5;
+	private final static int OUTCOMES = HandEvaluator.pack(Slots.HAND_TYPES, 0); // every packed value is below this
+	private final static int CODE_BITS = 6; // patterns keep five card codes, in suits numbered as they first appear
+	private final static int CODE_MASK = (1 << CODE_BITS) - 1;
+	private final static double Z_999 = 3.090232; // one sided 99.9% normal quantile
+	
+	// every way to rename the suits, and every order for five cards, picked together by one number.
+	private final static int RENAMES = 24;
+	private final static int ORDERS = 120;
+	private final static byte[] RENAME = new byte[RENAMES * Card.CODES]; // card code after each renaming
+	private final static int[] SUIT_MAP = new int[RENAMES * SUITS]; // new suit of each suit, per renaming
+	private final static int[] ORDER = new int[ORDERS * HAND_SIZE]; // which pattern card goes at each spot
+	static {
+		permute(SUIT_MAP, SUITS);
+		permute(ORDER, HAND_SIZE);
+		for(int r = 0; r < RENAMES; r++){
+			for(int code = 0; code < Card.CODES; code++){
+				RENAME[r * Card.CODES + code] = (byte) (code == Card.JOKER_CODE ? code :
+						SUIT_MAP[r * SUITS + code / RANKS] * RANKS + code % RANKS);
+			}
+		}
+	}
+	
+	private final Geometry geometry;
+	private final int combinations; // every 5 card hand in the deck
+	private final int[] weights = new int[OUTCOMES]; // hands giving each packed value
+	private final int[] patterns; // five card codes of every pattern
+	private final char[] values; // packed value of every pattern
+	private final int[] prob; // alias table over the patterns
+	private final int[] alias;
+	
+	public static void main(String[] args){ // usage: OutcomeTable [spins] [rows]
+		// samples spins with checking on and compares what the boards score with the exact odds.
+		long spins = args.length > 0 ? Long.parseLong(args[0]) : 10000000;
+		Geometry g = Geometry.valueOf(args.length > 1 ? Integer.parseInt(args[1]) : Slots.getRows());
+		OutcomeTable table = new OutcomeTable(g);
+		RtpCalculator calc = new RtpCalculator(g.getJokers());
+		int mismatches = 0;
+		for(int packed = 0; packed < OUTCOMES; packed++){
+			if(table.getWeight(packed) != calc.getCount(packed)){
+				mismatches++;
+			}
+		}
+		System.out.println(table + ", " + mismatches + " weights differ from RtpCalculator");
+		System.out.println(table.verify(spins, RandomSource.create()));
+	}
+	
+	public OutcomeTable(Geometry g){ // counts every hand in the deck for the specified machine.
+		geometry = g;
+		int jokers = g.getJokers();
+		ArrayList<Long> found = new ArrayList<>(); // pattern and weight, packed into a long
+		int[] ranks = new int[HAND_SIZE];
+		for(int k = 0; k <= Math.min(jokers, HAND_SIZE); k++){
+			enumerate(found, ranks, 0, RANKS - 1, HAND_SIZE - k, RtpCalculator.choose(jokers, k));
+		}
+		int n = found.size();
+		patterns = new int[n];
+		values = new char[n];
+		long[] w = new long[n];
+		for(int i = 0; i < n; i++){
+			patterns[i] = (int) (found.get(i) >>> 32);
+			values[i] = (char) evaluate(patterns[i]);
+			w[i] = (int) (long) found.get(i);
+			weights[values[i]] += w[i];
+		}
+		prob = new int[n];
+		alias = new int[n];
+		long total = alias(w, prob, alias);
+		if(total > Integer.MAX_VALUE){ // can't happen on a machine of up to 5 rows
+			throw new IllegalArgumentException("Too many hands");
+		}
+		combinations = (int) total;
+	}
+	
+	private static void permute(int[] table, int n){ // lists every ordering of 0 to n - 1, n numbers at a time.
+		int[] p = new int[n];
+		for(int i = 0; i < n; i++){
+			p[i] = i;
+		}
+		int rows = table.length / n;
+		for(int r = 0; r < rows; r++){
+			System.arraycopy(p, 0, table, r * n, n);
+			int i = n - 2; // next ordering, lexicographically
+			while(i >= 0 && p[i] > p[i + 1]){
+				i--;
+			}
+			if(i < 0){
+				break;
+			}
+			int j = n - 1;
+			while(p[j] < p[i]){
+				j--;
+			}
+			int t = p[i];
+			p[i] = p[j];
+			p[j] = t;
+			for(int a = i + 1, b = n - 1; a < b; a++, b--){
+				t = p[a];
+				p[a] = p[b];
+				p[b] = t;
+			}
+		}
+	}
+	
+	private static void enumerate(ArrayList<Long> found, int[] ranks, int n, int max, int m, long jokerWays){
+		// picks ranks in descending order, then suits for them.
+		if(n < m){
+			for(int r = max; r >= 0; r--){
+				if(n >= SUITS && ranks[n - SUITS] == r){ // only four cards of each rank
+					continue;
+				}
+				ranks[n] = r;
+				enumerate(found, ranks, n + 1, r, m, jokerWays);
+			}
+			return;
+		}
+		suit(found, ranks, new int[m], 0, m, jokerWays);
+	}
+	
+	private static void suit(ArrayList<Long> found, int[] ranks, int[] suits, int n, int m, long jokerWays){
+		// gives each card a suit, rising within a rank so every set of cards comes up once. Each
+		// set is then kept only if it's the smallest of its renamings, and stands for all of them.
+		if(n < m){
+			for(int s = n > 0 && ranks[n] == ranks[n - 1] ? suits[n - 1] + 1 : 0; s < SUITS; s++){
+				suits[n] = s;
+				suit(found, ranks, suits, n + 1, m, jokerWays);
+			}
+			return;
+		}
+		int[] t = new int[m];
+		int key = key(ranks, suits, m, 0, t);
+		int[] images = new int[RENAMES];
+		for(int r = 1; r < RENAMES; r++){
+			images[r] = key(ranks, suits, m, r, t);
+			if(images[r] < key){ // another renaming stands for this one
+				return;
+			}
+		}
+		images[0] = key;
+		Arrays.sort(images);
+		int distinct = 1; // hands this pattern stands for
+		for(int r = 1; r < RENAMES; r++){
+			if(images[r] != images[r - 1]){
+				distinct++;
+			}
+		}
+		int pattern = 0;
+		for(int i = 0; i < HAND_SIZE; i++){
+			int code = i < m ? Card.code(ranks[i] + 2, suits[i]) : Card.JOKER_CODE;
+			pattern |= code << (CODE_BITS * i);
+		}
+		found.add(((long) pattern << 32) | jokerWays * distinct);
+	}
+	
+	private static int key(int[] ranks, int[] suits, int m, int rename, int[] t){ // suits after a renaming, sorted within each rank.
+		for(int i = 0; i < m; i++){
+			t[i] = SUIT_MAP[rename * SUITS + suits[i]];
+			for(int j = i; j > 0 && ranks[j] == ranks[j - 1] && t[j] < t[j - 1]; j--){
+				int x = t[j];
+				t[j] = t[j - 1];
+				t[j - 1] = x;
+			}
+		}
+		int key = 0;
+		for(int i = 0; i < m; i++){
+			key = key * SUITS + t[i];
+		}
+		return key;
+	}
+	
+	private static int evaluate(int pattern){ // packed value of a pattern.
+		return HandEvaluator.evaluate(pattern & CODE_MASK, (pattern >>> CODE_BITS) & CODE_MASK,
+				(pattern >>> (2 * CODE_BITS)) & CODE_MASK, (pattern >>> (3 * CODE_BITS)) & CODE_MASK,
+				(pattern >>> (4 * CODE_BITS)) & CODE_MASK);
+	}
+	
+	private static int alias(long[] w, int[] prob, int[] alias){ // builds an exact alias table. Returns the total weight.
+		// Each of the n columns is worth total / n. A light column keeps its own share and
+		// lends the rest to a heavy one, so picking a column, then a number below total, picks
+		// an entry with odds exactly proportional to its weight. Everything is scaled by n.
+		int n = w.length;
+		long total = 0;
+		for(long x : w){
+			total += x;
+		}
+		long[] scaled = new long[n];
+		int[] small = new int[n];
+		int[] large = new int[n];
+		int s = 0;
+		int l = 0;
+		for(int i = 0; i < n; i++){
+			scaled[i] = w[i] * n;
+			if(scaled[i] < total){
+				small[s++] = i;
+			} else {
+				large[l++] = i;
+			}
+		}
+		while(s > 0 && l > 0){
+			int a = small[--s];
+			int b = large[--l];
+			prob[a] = (int) scaled[a];
+			alias[a] = b;
+			scaled[b] -= total - scaled[a];
+			if(scaled[b] < total){
+				small[s++] = b;
+			} else {
+				large[l++] = b;
+			}
+		}
+		while(l > 0){ // what is left is worth exactly total, since the scaled weights sum to n * total
+			int b = large[--l];
+			prob[b] = (int) total;
+			alias[b] = b;
+		}
+		return (int) total;
+	}
+	
+	private static int pick(RandomSource rng, int[] prob, int[] alias, int total){ // samples an alias table.
+		int i = rng.nextInt(prob.length);
+		return rng.nextInt(total) < prob[i] ? i : alias[i];
+	}
+	
+	int deal(RandomSource rng, byte[] board, int[] cells){ // lays the first line out. Returns its packed value.
+		int c = pick(rng, prob, alias, combinations);
+		int r = rng.nextInt(RENAMES * ORDERS);
+		int rename = (r % RENAMES) * Card.CODES;
+		int order = (r / RENAMES) * HAND_SIZE;
+		int pattern = patterns[c];
+		for(int i = 0; i < HAND_SIZE; i++){
+			board[cells[i]] = RENAME[rename + ((pattern >>> (CODE_BITS * ORDER[order + i])) & CODE_MASK)];
+		}
+		return values[c];
+	}
+	
+	public SimulationResult verify(long spins, RandomSource rng){ // checks sampled boards against full evaluation.
+		// Every board is scored the usual way and must show the sampled hand, or this throws.
+		// The hand types that come up are then compared with the exact odds.
+		Slots game = new Slots(geometry, 1, 1, 0, 0, rng);
+		game.setOutcomes(this, true);
+		SimulationResult result = new SimulationResult(1);
+		long[] observed = new long[Slots.HAND_TYPES + 1]; // by hand type, no win last
+		for(long i = 0; i < spins; i++){
+			result.add(game.play());
+			int type = HandEvaluator.handClass(game.lineResult(0));
+			if(type != Slots.HIGH_CARD){
+				result.addHand(type);
+			}
+			observed[type == Slots.HIGH_CARD ? Slots.HAND_TYPES : type]++;
+		}
+		double chi = 0;
+		int cells = 0;
+		for(int type = 0; type <= Slots.HAND_TYPES; type++){
+			long w = 0;
+			for(int packed = 0; packed < OUTCOMES; packed++){
+				int t = HandEvaluator.handClass(packed);
+				if(t == (type == Slots.HAND_TYPES ? Slots.HIGH_CARD : type)){
+					w += weights[packed];
+				}
+			}
+			double expected = (double) spins * w / combinations;
+			if(expected > 0){
+				chi += (observed[type] - expected) * (observed[type] - expected) / expected;
+				cells++;
+			}
+		}
+		double df = cells - 1; // Wilson-Hilferty approximation of the critical value
+		double critical = df * Math.pow(1 - 2 / (9 * df) + Z_999 * Math.sqrt(2 / (9 * df)), 3);
+		if(chi > critical){
+			throw new IllegalStateException(String.format("Hand types don't match the odds: chi-square %.2f > %.2f", chi, critical));
+		}
+		return result;
+	}
+	
+	public Geometry getGeometry(){
+		return geometry;
+	}
+	
+	public int getCombinations(){ // returns the number of distinct 5 card hands in the deck.
+		return combinations;
+	}
+	
+	public int getWeight(int packed){ // returns the number of hands giving the specified packed value.
+		return weights[packed];
+	}
+	
+	public String toString(){
+		return "Outcomes: " + geometry + ", " + patterns.length + " patterns over " + combinations + " deals";
+	}
+}
@@ -0,0 +1,164 @@
+/**
+ * Paytable Class - what each hand pays, loaded from a properties file and compiled into a lookup array.
+ */
+package model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * @author retro
+ *
+ */
+public final class Paytable {
+	// A paytable file lists the pay for a bet of 1 on one line:
+	//   <hand> = base pay, e.g. one_pair = 2
+	//   <hand>.rank = extra pay per point of the winning rank (2 through 14 for Aces), for hands that have one
+	//   <hand>.<rank> = exact pay for one winning rank, overriding both of the above
+	//   name = a label for reports
+	// Hands are named like "three_of_a_kind". Hands that aren't listed pay nothing.
+	private final static String RESOURCE = "default.paytable";
+	private final static int PACKED_VALUES = HandEvaluator.pack(Slots.HAND_TYPES, 0); // every packed value is below this
+	private final static int MAX_RANK = Card.ACE;
+	
+	// caps a single line's pay, so that a spin paying every way on the biggest machine can't overflow.
+	public final static int MAX_PAY = Integer.MAX_VALUE / Geometry.valueOf(Geometry.MAX_ROWS).getWays();
+	
+	public final static Paytable STANDARD = standard(); // the game's usual math, from default.paytable
+	
+	private final String name;
+	private final int[] pays = new int[PACKED_VALUES]; // pay for each packed hand value. 0 is no win
+	private int maxPay = 0; // the biggest of them
+	
+	private Paytable(String name){
+		this.name = name;
+	}
+	
+	public static Paytable load(Path file) throws IOException { // reads a paytable file.
+		try (InputStream in = Files.newInputStream(file)) {
+			return load(in);
+		}
+	}
+	
+	public static Paytable load(InputStream in) throws IOException { // same as above, from a stream.
+		Properties p = new Properties();
+		p.load(in);
+		return compile(p);
+	}
+	
+	public static Paytable compile(Properties p){ // builds the lookup array from paytable properties.
+		Paytable table = new Paytable(p.getProperty("name", "custom"));
+		for(String key : p.stringPropertyNames()){ // catch misspelled entries rather than paying them nothing
+			if(!key.equals("name")){
+				check(key);
+			}
+		}
+		for(int type = Slots.ONE_PAIR; type < Slots.HAND_TYPES; type++){
+			String hand = key(type);
+			long base = number(p, hand, 0);
+			long perRank = number(p, hand + ".rank", 0);
+			int low = ranked(type) ? 2 : 0; // only the ranks the hand can win with, so maxPay is a pay that can happen
+			int high = ranked(type) ? MAX_RANK : 0;
+			for(int rank = low; rank <= high; rank++){
+				long pay = number(p, hand + "." + rank, base + perRank * rank);
+				if(pay < 0 || pay > MAX_PAY){
+					throw new IllegalArgumentException("Illegal pay for " + hand);
+				}
+				table.pays[HandEvaluator.pack(type, rank)] = (int) pay;
+				table.maxPay = Math.max(table.maxPay, (int) pay);
+			}
+		}
+		return table;
+	}
+	
+	private static Paytable standard(){ // loads the paytable that ships with the game.
+		try (InputStream in = Paytable.class.getResourceAsStream(RESOURCE)) {
+			if(in == null){
+				throw new IllegalStateException("Missing " + RESOURCE);
+			}
+			return load(in);
+		} catch (IOException e){
+			throw new IllegalStateException("Can't read " + RESOURCE, e);
+		}
+	}
+	
+	private static long number(Properties p, String key, long otherwise){ // reads a whole number, if present.
+		String value = p.getProperty(key);
+		if(value == null){
+			return otherwise;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e){
+			throw new IllegalArgumentException("Illegal number for " + key);
+		}
+	}
+	
+	static String key(int type){ // returns the name a hand type goes by in a paytable file.
+		return Slots.handName(type).toLowerCase().replace(' ', '_');
+	}
+	
+	private static int type(String key){ // returns the hand type with the specified name, or HIGH_CARD.
+		for(int type = Slots.ONE_PAIR; type < Slots.HAND_TYPES; type++){
+			if(key(type).equals(key)){
+				return type;
+			}
+		}
+		return Slots.HIGH_CARD;
+	}
+	
+	private static void check(String key){ // throws if the key isn't a hand, or hand.rank or hand.<rank> for ranks it can win with.
+		int dot = key.indexOf('.');
+		int type = type(dot < 0 ? key : key.substring(0, dot));
+		if(type == Slots.HIGH_CARD){
+			throw new IllegalArgumentException("Unknown paytable entry " + key);
+		}
+		if(dot < 0){
+			return;
+		}
+		String suffix = key.substring(dot + 1);
+		if(suffix.equals("rank") && ranked(type)){
+			return;
+		}
+		int rank = -1;
+		if(suffix.matches("[0-9]{1,2}")){
+			rank = Integer.parseInt(suffix);
+		}
+		if(ranked(type) ? rank < 2 || rank > MAX_RANK : rank != 0){ // hands without a win rank only have rank 0
+			throw new IllegalArgumentException("Unknown paytable entry " + key);
+		}
+	}
+	
+	private static boolean ranked(int type){ // true if the evaluator gives the hand type a win rank.
+		return type != Slots.STRAIGHT && type != Slots.FLUSH && type < Slots.STRAIGHT_FLUSH;
+	}
+	
+	public int pay(int packed){ // returns the pay for a packed hand value at a bet of 1.
+		return pays[packed];
+	}
+	
+	public int getMaxPay(){ // returns the most any one line can pay at a bet of 1.
+		return maxPay;
+	}
+	
+	int[] pays(){ // the lookup array itself, for the spin loop. Shared, so never write to it.
+		return pays;
+	}
+	
+	public String getName(){
+		return name;
+	}
+	
+	public String toString(){ // lists the base pay of each hand.
+		String s = "Paytable: " + name + "\n";
+		for(int type = Slots.ONE_PAIR; type < Slots.HAND_TYPES; type++){
+			int low = pays[HandEvaluator.pack(type, ranked(type) ? 2 : 0)];
+			int high = pays[HandEvaluator.pack(type, ranked(type) ? MAX_RANK : 0)];
+			s = s + String.format("%-16s %10d%s%n", Slots.handName(type), low, high == low ? "" : " to " + high);
+		}
+		return s.trim();
+	}
+}
@@ -0,0 +1,37 @@
+/**
+ * RandomSource Interface - supplies the random numbers used to shuffle and pick cards.
+ */
+package model;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author retro
+ *
+ */
+public interface RandomSource {
+	
+	int nextInt(int bound); // returns a random number from 0 up to, but not including, bound.
+	
+	RandomSource split(); // returns an independent source to hand to another thread.
+	
+	default long getSeed(){ // returns the seed the source started from, or -1 if it can't be replayed.
+		return -1;
+	}
+	
+	default long getPosition(){ // returns the number of draws taken since the seed, or -1 if unknown.
+		return -1;
+	}
+	
+	static RandomSource seeded(long seed){ // a reproducible source. The same seed replays the same spins.
+		return new SplittableRandomSource(seed);
+	}
+	
+	static RandomSource create(){ // a fresh source with a random seed.
+		return seeded(ThreadLocalRandom.current().nextLong());
+	}
+	
+	static RandomSource threadLocal(){ // shared by everything, but each thread draws from its own generator.
+		return ThreadLocalRandomSource.INSTANCE;
+	}
+}
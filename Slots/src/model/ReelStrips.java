@@ -0,0 +1,104 @@
+/**
+ * ReelStrips Class - fixed strips of cards, one per column, for spinning like a physical machine.
+ */
+package model;
+
+import java.util.List;
+
+/**
+ * @author retro
+ *
+ */
+public final class ReelStrips {
+	// A spin picks one random stop per column and shows the cards from that stop down, so a
+	// spin costs COLUMNS random numbers and a copy, with no shuffling. Each strip is stored
+	// with its first rows - 1 cards repeated at the end, so the window never has to wrap.
+	// Strips are immutable and can be shared by any number of games.
+	private final Geometry geometry;
+	private final byte[][] strips; // card codes, padded for the window
+	private final int[] lengths; // real length of each strip
+	
+	public ReelStrips(Geometry g, List<List<Card>> strips){ // builds strips from lists of cards, one per column.
+		this(g, codes(strips));
+	}
+	
+	ReelStrips(Geometry g, byte[][] codes){
+		if(codes.length != g.getColumns()){
+			throw new IllegalArgumentException("Illegal number of strips");
+		}
+		geometry = g;
+		strips = new byte[codes.length][];
+		lengths = new int[codes.length];
+		for(int i = 0; i < codes.length; i++){
+			int n = codes[i].length;
+			if(n < g.getRows()){
+				throw new IllegalArgumentException("Strip shorter than the window");
+			}
+			lengths[i] = n;
+			strips[i] = new byte[n + g.getRows() - 1];
+			for(int j = 0; j < strips[i].length; j++){
+				strips[i][j] = codes[i][j % n];
+			}
+		}
+	}
+	
+	public static ReelStrips standard(Geometry g, RandomSource rng){ // strips with the deck's share of Jokers.
+		return standard(g, g.getJokers() / g.getColumns(), rng);
+	}
+	
+	public static ReelStrips standard(Geometry g, int jokers, RandomSource rng){
+		// every strip is a whole deck plus the specified Jokers, in its own random order.
+		if(jokers < 0){
+			throw new IllegalArgumentException("Illegal number of Jokers");
+		}
+		byte[][] codes = new byte[g.getColumns()][];
+		for(int i = 0; i < codes.length; i++){
+			codes[i] = new byte[Card.JOKER_CODE + jokers];
+			for(int code = 0; code < codes[i].length; code++){
+				codes[i][code] = (byte) Math.min(code, Card.JOKER_CODE); // standard cards, then Jokers
+			}
+			shuffle(codes[i], rng);
+		}
+		return new ReelStrips(g, codes);
+	}
+	
+	private static void shuffle(byte[] a, RandomSource rng){ // Fisher-Yates.
+		for(int i = a.length - 1; i > 0; i--){
+			int j = rng.nextInt(i + 1);
+			byte t = a[i];
+			a[i] = a[j];
+			a[j] = t;
+		}
+	}
+	
+	private static byte[][] codes(List<List<Card>> strips){ // card codes of every strip.
+		byte[][] codes = new byte[strips.size()][];
+		for(int i = 0; i < codes.length; i++){
+			List<Card> strip = strips.get(i);
+			codes[i] = new byte[strip.size()];
+			for(int j = 0; j < codes[i].length; j++){
+				codes[i][j] = (byte) strip.get(j).getCode();
+			}
+		}
+		return codes;
+	}
+	
+	void spin(RandomSource rng, byte[] board){ // fills the board from one random stop on each strip.
+		int rows = geometry.getRows();
+		for(int i = 0; i < strips.length; i++){
+			System.arraycopy(strips[i], rng.nextInt(lengths[i]), board, i * rows, rows);
+		}
+	}
+	
+	public Geometry getGeometry(){
+		return geometry;
+	}
+	
+	public int getLength(int column){ // returns the number of cards on the specified strip.
+		return lengths[column];
+	}
+	
+	public Card getCard(int column, int stop){ // returns the card at the specified spot on a strip.
+		return Card.valueOf(strips[column][stop]);
+	}
+}
@@ -0,0 +1,200 @@
+/**
+ * RtpCalculator Class - works out the exact return to player by counting every possible hand.
+ */
+package model;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Paths;
+import java.util.stream.IntStream;
+
+/**
+ * @author retro
+ *
+ */
+public class RtpCalculator {
+	private final static int RANKS = 13;
+	private final static int SUITS = 4;
+	private final static int HAND_SIZE = 5;
+	private final static int OUTCOMES = 1 << 8; // packed hand values fit in a byte
+	
+	private final int jokers; // Jokers in the deck
+	private final long[] counts = new long[OUTCOMES]; // number of 5 card hands giving each packed value
+	private long combinations = 0; // number of 5 card hands in the deck
+	
+	public static void main(String[] args) throws IOException { // usage: RtpCalculator [jokers] [paytable file]
+		int jokers = args.length > 0 ? Integer.parseInt(args[0]) : Geometry.STANDARD.getJokers();
+		long start = System.nanoTime();
+		RtpCalculator calc = new RtpCalculator(jokers);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(calc);
+		if(args.length > 1){ // the same hands, paid from another table
+			Paytable p = Paytable.load(Paths.get(args[1]));
+			System.out.println(p);
+			System.out.println(String.format("RTP: %.6f%%", 100 * calc.getRtp(p)));
+		}
+		System.out.println(String.format("%.3f seconds", seconds));
+	}
+	
+	public RtpCalculator(){ // counts the hands in a standard slots deck.
+		this(Geometry.STANDARD.getJokers());
+	}
+	
+	public RtpCalculator(int jokers){ // counts the hands in 52 standard cards plus the specified Jokers.
+		if(jokers < 0){
+			throw new IllegalArgumentException("Illegal number of Jokers");
+		}
+		this.jokers = jokers;
+		// Hands only differ by whether their suits make a flush, so the suits never need to be
+		// enumerated: each multiset of ranks is scored once as a flush and once as not, and the
+		// number of ways to pick suits for it is counted instead. Work is split by Joker count
+		// and the highest rank in the hand.
+		long[][] partials = IntStream.range(0, (HAND_SIZE + 1) * (RANKS + 1)).parallel()
+				.mapToObj(this::count).toArray(long[][]::new);
+		for(long[] partial : partials){
+			for(int i = 0; i < OUTCOMES; i++){
+				counts[i] += partial[i];
+			}
+		}
+		for(int i = 0; i < OUTCOMES; i++){
+			combinations += counts[i];
+		}
+	}
+	
+	private long[] count(int task){ // counts every hand with a given Joker count and highest rank.
+		long[] partial = new long[OUTCOMES];
+		int k = task / (RANKS + 1); // Jokers in the hand
+		int top = task % (RANKS + 1) - 1; // highest rank in the hand, -1 if there is none
+		int m = HAND_SIZE - k; // standard cards in the hand
+		if((m == 0) != (top < 0)){ // only all Joker hands have no highest rank
+			return partial;
+		}
+		int[] ranks = new int[HAND_SIZE];
+		for(int i = 0; i < k; i++){
+			ranks[m + i] = -1;
+		}
+		if(m == 0){
+			tally(partial, ranks, 0, k);
+		} else {
+			ranks[0] = top;
+			enumerate(partial, ranks, 1, top, m, k);
+		}
+		return partial;
+	}
+	
+	private void enumerate(long[] partial, int[] ranks, int n, int max, int m, int k){ // picks ranks in descending order.
+		if(n == m){
+			tally(partial, ranks, m, k);
+			return;
+		}
+		for(int r = max; r >= 0; r--){
+			if(n >= SUITS && ranks[n - SUITS] == r){ // only four cards of each rank
+				continue;
+			}
+			ranks[n] = r;
+			enumerate(partial, ranks, n + 1, r, m, k);
+		}
+	}
+	
+	private void tally(long[] partial, int[] ranks, int m, int k){ // scores one rank multiset.
+		long ways = choose(jokers, k); // ways to pick the Jokers
+		long suited = 1; // ways to pick suits for the standard cards
+		boolean distinct = true;
+		for(int i = 0; i < m; ){
+			int j = i;
+			while(j < m && ranks[j] == ranks[i]){
+				j++;
+			}
+			suited *= choose(SUITS, j - i);
+			distinct &= j - i == 1;
+			i = j;
+		}
+		long flushes = m == 0 ? 1 : (distinct ? SUITS : 0); // every card in one suit
+		int[] codes = new int[HAND_SIZE];
+		for(int i = 0; i < HAND_SIZE; i++){ // all spades, or Jokers
+			codes[i] = i < m ? Card.code(ranks[i] + 2, Card.SPADES) : Card.JOKER_CODE;
+		}
+		if(flushes > 0){
+			partial[evaluate(codes)] += ways * flushes;
+		}
+		if(suited > flushes){
+			for(int i = 1; i < m; i++){ // give repeated ranks their own suits
+				if(ranks[i] == ranks[i - 1]){
+					codes[i] = codes[i - 1] + RANKS;
+				}
+			}
+			if(distinct){ // break up the flush
+				codes[0] = Card.code(ranks[0] + 2, Card.HEARTS);
+			}
+			partial[evaluate(codes)] += ways * (suited - flushes);
+		}
+	}
+	
+	private static int evaluate(int[] codes){
+		return HandEvaluator.evaluate(codes[0], codes[1], codes[2], codes[3], codes[4]);
+	}
+	
+	static long choose(int n, int k){ // n choose k
+		if(k < 0 || k > n){
+			return 0;
+		}
+		long c = 1;
+		for(int i = 0; i < k; i++){
+			c = c * (n - i) / (i + 1);
+		}
+		return c;
+	}
+	
+	public long getCombinations(){ // returns the number of distinct 5 card hands in the deck.
+		return combinations;
+	}
+	
+	public long getCount(int packed){ // returns the number of hands giving the specified packed value.
+		return counts[packed];
+	}
+	
+	public long getHandCount(int type){ // returns the number of hands of the specified type.
+		long n = 0;
+		for(int i = 0; i < OUTCOMES; i++){
+			if(HandEvaluator.handClass(i) == type){
+				n += counts[i];
+			}
+		}
+		return n;
+	}
+	
+	public BigInteger getTotalReturn(){ // returns the sum of the payouts of every hand.
+		return getTotalReturn(Paytable.STANDARD);
+	}
+	
+	public BigInteger getTotalReturn(Paytable p){ // same as above, paying from the specified paytable.
+		BigInteger total = BigInteger.ZERO;
+		for(int i = 0; i < OUTCOMES; i++){
+			if(counts[i] > 0){
+				total = total.add(BigInteger.valueOf(counts[i]).multiply(BigInteger.valueOf(p.pay(i))));
+			}
+		}
+		return total;
+	}
+	
+	public double getRtp(){ // returns the exact return to player. Each bet line returns the same.
+		// Every line on a board is 5 cards drawn from the same shuffled deck, so each one
+		// is a uniformly random 5 card hand, whatever the other lines hold.
+		return getRtp(Paytable.STANDARD);
+	}
+	
+	public double getRtp(Paytable p){ // same as above, paying from the specified paytable.
+		return getTotalReturn(p).doubleValue() / combinations;
+	}
+	
+	public String toString(){ // prints a report of the hand counts and return.
+		String s = "Deck: 52 cards plus " + jokers + " Jokers, " + combinations + " hands\n";
+		for(int type = Slots.ONE_PAIR; type < Slots.HAND_TYPES; type++){
+			long n = getHandCount(type);
+			s = s + String.format("%-16s %12d  %.8f%n", Slots.handName(type), n, (double) n / combinations);
+		}
+		s = s + "Total return: " + getTotalReturn() + " / " + combinations + "\n";
+		s = s + String.format("RTP: %.6f%%", 100 * getRtp());
+		return s;
+	}
+}
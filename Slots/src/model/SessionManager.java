@@ -0,0 +1,127 @@
+/**
+ * SessionManager Class - hosts many concurrent game sessions.
+ */
+package model;
+
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author retro
+ *
+ */
+public class SessionManager {
+	// Every session belongs to one shard and is only ever touched by that shard's thread, so
+	// game state needs no locks. Shards share nothing, so throughput grows with the number of
+	// shards (one per core by default).
+	private final Shard[] shards;
+	private final Geometry geometry; // shape of every session's machine
+	private final AtomicLong nextSession = new AtomicLong(1);
+	
+	public SessionManager(){ // one shard per core.
+		this(Runtime.getRuntime().availableProcessors(), RandomSource.create());
+	}
+	
+	public SessionManager(int shardCount, RandomSource rng){ // each shard gets its own split of rng.
+		this(shardCount, Geometry.STANDARD, rng);
+	}
+	
+	public SessionManager(int shardCount, Geometry g, RandomSource rng){ // same as above, hosting machines of shape g.
+		if(shardCount < 1){
+			throw new IllegalArgumentException("Illegal number of shards");
+		}
+		geometry = g;
+		shards = new Shard[shardCount];
+		for(int i = 0; i < shardCount; i++){
+			shards[i] = new Shard(i, rng.split());
+		}
+	}
+	
+	public CompletableFuture<Long> open(int balance){ // starts a session with the specified balance.
+		if(balance < 0){
+			throw new IllegalArgumentException("Illegal balance");
+		}
+		long id = nextSession.getAndIncrement();
+		Shard shard = shardOf(id);
+		return CompletableFuture.supplyAsync(() -> {
+			Slots game = new Slots(geometry, 1, 1, balance, 0, shard.rng.split());
+			shard.sessions.put(id, game);
+			return id;
+		}, shard.executor);
+	}
+	
+	public CompletableFuture<SpinResponse> spin(SpinRequest request){ // runs a spin on the session's own thread.
+		Shard shard = shardOf(request.getSession());
+		return CompletableFuture.supplyAsync(() -> shard.spin(request), shard.executor);
+	}
+	
+	public CompletableFuture<Integer> close(long session){ // ends a session. returns its final balance, or -1.
+		Shard shard = shardOf(session);
+		return CompletableFuture.supplyAsync(() -> {
+			Slots game = shard.sessions.remove(session);
+			return game == null ? -1 : game.getBalance();
+		}, shard.executor);
+	}
+	
+	public void shutdown(){ // stops every shard once its queued work is done.
+		for(Shard s : shards){
+			s.executor.shutdown();
+		}
+		for(Shard s : shards){
+			try {
+				s.executor.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e){
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+	
+	private Shard shardOf(long session){
+		return shards[(int) Long.remainderUnsigned(session, shards.length)];
+	}
+	
+	private static class Shard {
+		private final ExecutorService executor;
+		private final RandomSource rng; // only used on the shard's thread
+		private final HashMap<Long, Slots> sessions = new HashMap<>(); // only used on the shard's thread
+		
+		Shard(int index, RandomSource rng){
+			this.rng = rng;
+			this.executor = Executors.newSingleThreadExecutor(r -> {
+				Thread t = new Thread(r, "slots-shard-" + index);
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		
+		SpinResponse spin(SpinRequest request){
+			long id = request.getSession();
+			Slots game = sessions.get(id);
+			if(game == null){
+				return SpinResponse.failed(id, SpinResponse.NO_SESSION, 0);
+			}
+			try { // all or nothing, so a bad request leaves the session as it was
+				game.configure(request.getBet() != SpinRequest.SAME ? request.getBet() : game.getBet(), game.isWays(),
+						request.getBetLines() != SpinRequest.SAME ? request.getBetLines() : game.getBetLines());
+			} catch (IllegalArgumentException e){
+				return SpinResponse.failed(id, SpinResponse.BAD_REQUEST, game.getBalance());
+			}
+			if(!game.canSpin()){
+				return SpinResponse.failed(id, SpinResponse.INSUFFICIENT_FUNDS, game.getBalance());
+			}
+			int wager = game.getTotalBet();
+			int payout = game.spin();
+			byte[] board = new byte[game.getGeometry().size()];
+			int[] lines = new int[game.getActiveLines()];
+			game.copyBoard(board);
+			game.copyLineResults(lines);
+			return new SpinResponse(id, SpinResponse.OK, wager, payout, game.getBalance(),
+					game.getGeometry().getRows(), board, lines);
+		}
+	}
+}
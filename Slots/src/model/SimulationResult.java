@@ -0,0 +1,103 @@
+/**
+ * SimulationResult Class - totals gathered over a batch of simulated spins.
+ */
+package model;
+
+/**
+ * @author retro
+ *
+ */
+public class SimulationResult {
+	private final static double Z_95 = 1.959964; // two sided 95% normal quantile
+	
+	private final int betLines;
+	private long spins = 0;
+	private long paid = 0; // total paid out, for a bet of 1 on each line
+	private long hits = 0; // spins that paid anything
+	private double sumSquares = 0; // sum of (payout / wager)^2 per spin, for the variance
+	private long[] handCounts = new long[Slots.HAND_TYPES]; // winning lines by hand type
+	
+	SimulationResult(int betLines){ // create an empty result for the specified number of bet lines.
+		this.betLines = betLines;
+	}
+	
+	void add(int payout){ // records one spin. payout is for a bet of 1 on each line.
+		spins++;
+		paid += payout;
+		if(payout > 0){
+			hits++;
+			double x = (double) payout / betLines;
+			sumSquares += x * x;
+		}
+	}
+	
+	void addHand(int type){ // records a winning line.
+		handCounts[type]++;
+	}
+	
+	void merge(SimulationResult other){ // folds the totals of another batch into this one.
+		spins += other.spins;
+		paid += other.paid;
+		hits += other.hits;
+		sumSquares += other.sumSquares;
+		for(int i = 0; i < handCounts.length; i++){
+			handCounts[i] += other.handCounts[i];
+		}
+	}
+	
+	public long getSpins(){ // returns the number of spins simulated.
+		return spins;
+	}
+	
+	public long getWagered(){ // returns the total wagered, for a bet of 1 on each line.
+		return spins * betLines;
+	}
+	
+	public long getPaid(){ // returns the total paid out, for a bet of 1 on each line.
+		return paid;
+	}
+	
+	public double getRtp(){ // returns the return to player, as a fraction of the amount wagered.
+		return spins == 0 ? 0 : (double) paid / getWagered();
+	}
+	
+	public double getHitFrequency(){ // returns the fraction of spins that paid anything.
+		return spins == 0 ? 0 : (double) hits / spins;
+	}
+	
+	public double getHandFrequency(int type){ // returns how often a single line shows the specified hand type.
+		return spins == 0 ? 0 : (double) handCounts[type] / getWagered();
+	}
+	
+	public long getHandCount(int type){ // returns the number of lines that showed the specified hand type.
+		return handCounts[type];
+	}
+	
+	public double getVariance(){ // returns the variance of a single spin's return, per unit wagered.
+		if(spins < 2){
+			return 0;
+		}
+		double mean = getRtp();
+		return (sumSquares - spins * mean * mean) / (spins - 1);
+	}
+	
+	public double getStandardDeviation(){ // returns the standard deviation of a single spin's return.
+		return Math.sqrt(getVariance());
+	}
+	
+	public double getConfidence(){ // returns the half width of the 95% confidence interval for the RTP.
+		return spins == 0 ? 0 : Z_95 * getStandardDeviation() / Math.sqrt(spins);
+	}
+	
+	public String toString(){ // prints a report of the results.
+		String s = "Spins: " + spins + " on " + betLines + " bet lines\n";
+		s = s + String.format("RTP: %.4f%% +/- %.4f%% (95%%)%n", 100 * getRtp(), 100 * getConfidence());
+		s = s + String.format("Hit frequency: %.4f%%%n", 100 * getHitFrequency());
+		s = s + String.format("Variance: %.2f  Standard deviation: %.2f%n", getVariance(), getStandardDeviation());
+		for(int i = 0; i < handCounts.length; i++){ // per line frequency of each winning hand
+			s = s + String.format("%-16s %14d  1 in %.1f%n", Slots.handName(i), handCounts[i],
+					handCounts[i] == 0 ? 0 : (double) getWagered() / handCounts[i]);
+		}
+		return s;
+	}
+}
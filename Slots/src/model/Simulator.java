@@ -0,0 +1,101 @@
+/**
+ * Simulator Class - runs large numbers of spins across every core to measure a game's return.
+ */
+package model;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * @author retro
+ *
+ */
+public class Simulator {
+	private final static long BATCH = 1 << 16; // spins run by a single task before splitting stops
+	
+	private final Geometry geometry;
+	private final Paytable paytable;
+	private final int betLines;
+	private final long seed;
+	private final ForkJoinPool pool;
+	
+	public static void main(String[] args) throws IOException { // usage: Simulator [spins] [bet lines] [seed] [rows] [paytable file]
+		long spins = args.length > 0 ? Long.parseLong(args[0]) : 10000000L;
+		Geometry g = args.length > 3 ? Geometry.valueOf(Integer.parseInt(args[3])) : Geometry.STANDARD;
+		int lines = args.length > 1 ? Integer.parseInt(args[1]) : g.getLineCount();
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+		Paytable p = args.length > 4 ? Paytable.load(Paths.get(args[4])) : Paytable.STANDARD;
+		Simulator sim = new Simulator(g, p, lines, seed, ForkJoinPool.commonPool());
+		long start = System.nanoTime();
+		SimulationResult result = sim.run(spins);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(result);
+		System.out.println(String.format("Seed %d, %.2f seconds, %.0f spins per second", seed, seconds, spins / seconds));
+	}
+	
+	public Simulator(int betLines, long seed){ // create a simulator that uses every core.
+		this(betLines, seed, ForkJoinPool.commonPool());
+	}
+	
+	public Simulator(int betLines, long seed, ForkJoinPool pool){ // same as above, on the specified pool.
+		this(Geometry.STANDARD, betLines, seed, pool);
+	}
+	
+	public Simulator(Geometry g, int betLines, long seed, ForkJoinPool pool){ // same as above, for a machine of shape g.
+		this(g, Paytable.STANDARD, betLines, seed, pool);
+	}
+	
+	public Simulator(Geometry g, Paytable p, int betLines, long seed, ForkJoinPool pool){ // same as above, paying from p.
+		if(betLines < 1 || betLines > g.getLineCount()){
+			throw new IllegalArgumentException("Illegal number of bet lines");
+		}
+		this.geometry = g;
+		this.paytable = p;
+		this.betLines = betLines;
+		this.seed = seed;
+		this.pool = pool;
+	}
+	
+	public SimulationResult run(long spins){ // simulates the specified number of spins.
+		// The random sources are split in the same order every time, so a seed always
+		// gives the same result no matter how the work is scheduled.
+		return pool.invoke(new Batch(spins, RandomSource.seeded(seed)));
+	}
+	
+	private class Batch extends RecursiveTask<SimulationResult> {
+		private final static long serialVersionUID = 1L;
+		private final long spins;
+		private final RandomSource rng;
+		
+		Batch(long spins, RandomSource rng){
+			this.spins = spins;
+			this.rng = rng;
+		}
+		
+		protected SimulationResult compute(){
+			if(spins > BATCH){ // split the work in half and run both halves
+				Batch left = new Batch(spins / 2, rng.split());
+				Batch right = new Batch(spins - spins / 2, rng);
+				left.fork();
+				SimulationResult result = right.compute();
+				result.merge(left.join());
+				return result;
+			}
+			SimulationResult result = new SimulationResult(betLines);
+			Slots game = new Slots(geometry, betLines, 1, 0, 0, rng);
+			game.setPaytable(paytable);
+			for(long i = 0; i < spins; i++){
+				result.add(game.play());
+				for(int j = 0; j < betLines; j++){ // tally the hand on each line
+					int type = HandEvaluator.handClass(game.lineResult(j));
+					if(type != Slots.HIGH_CARD){
+						result.addHand(type);
+					}
+				}
+			}
+			return result;
+		}
+	}
+}
@@ -3,42 +3,37 @@
  */
 package model;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * @author retro
  *
  */
 public class Slots {
-	// indicates row height. Should match number of rows.
-	private final static int HIGH = 0;
-	private final static int MID = 1;
-	private final static int LOW = 2;
-	
-	// size of the slot machine. 3x5 is pretty standard.
+	// size of the standard slot machine. 3x5 is pretty standard. Games may use any Geometry.
 	private final static int ROWS = 3;
 	private final static int COLUMNS = 5;
 	private final static int TOTAL_BET_LINES = (int) Math.pow(ROWS, COLUMNS); // total possible bet lines
 	
-	private final static int SHUFFLES = 3; // default number of times to shuffle the cards.
-	
 	// hand types
-	private final static int HIGH_CARD = -1;
-	private final static int ONE_PAIR = 0;
-	private final static int TWO_PAIR = 1;
-	private final static int THREE_OF_A_KIND = 2;
-	private final static int STRAIGHT = 3;
-	private final static int FLUSH = 4;
-	private final static int FULL_HOUSE = 5;
-	private final static int FOUR_OF_A_KIND = 6;
-	private final static int STRAIGHT_FLUSH = 7;
-	private final static int ROYAL_FLUSH = 8;
+	final static int HIGH_CARD = -1;
+	final static int ONE_PAIR = 0;
+	final static int TWO_PAIR = 1;
+	final static int THREE_OF_A_KIND = 2;
+	final static int STRAIGHT = 3;
+	final static int FLUSH = 4;
+	final static int FULL_HOUSE = 5;
+	final static int FOUR_OF_A_KIND = 6;
+	final static int STRAIGHT_FLUSH = 7;
+	final static int ROYAL_FLUSH = 8;
+	final static int HAND_TYPES = 9; // number of winning hand types
 	
 	// initialize game values
 	private int betLines = 0;
 	private int bet = 0;
 	private int balance = 0;
 	private int autoSpin = 0;
+	private boolean ways = false; // pay every row combination instead of the bet lines
 	
 	// default game values
 	private final static int initBetLines = 1;
@@ -46,11 +41,33 @@ public class Slots {
 	private final static int initBalance = 1000;
 	private final static int initAutoSpin = 0;
 	
+	// A session keeps only its own state. Tables (cards, lines, paytables) are shared, and
+	// scratch space is only allocated once a session spins, so idle sessions stay small.
+	private final static int[] NO_RESULTS = new int[0];
+	
 	
-	private Card[][] reels = new Card[COLUMNS][ROWS]; // defines the reels on the game
-	private SlotsDeck deck = new SlotsDeck(); // create a new deck of cards to deal
+	private final Geometry geometry; // rows, columns and bet lines of this machine
+	private final int rows; // copied out of the geometry for the spin loop
+	private final int[] lineCells; // board index of every card on every bet line
+	private Paytable paytable = Paytable.STANDARD; // what each hand pays
+	private int[] pays = paytable.pays(); // the paytable's lookup array, for the spin loop
+	private byte[] board; // card codes on the reels, one column after another
+	private int[] undealt = null; // cells of the board not dealt yet, or null if it's all there
+	private boolean sampled = false; // the first line was sampled, and its cards are still in the deck
+	private SlotsDeck deck = null; // the deck of cards to deal, created on the first deal
+	private ReelStrips strips = null; // reel strips to spin instead of dealing, if set
+	private OutcomeTable outcomes = null; // picks one line spins' hands up front, if set
+	private boolean verifyOutcomes = false; // scores outcome-first boards the usual way as a check
+	private RandomSource rng; // where the deck gets its random numbers
 	
-	private ArrayList<ArrayList<Integer>> blt = new ArrayList<ArrayList<Integer>>(); // the bet lines table.
+	private SpinJournal journal = null; // records every spin, if set
+	private long session = 0; // identifies this game in the journal
+	private SlotsMetrics metrics = null; // instrumentation, if set
+	private SpinEventRing events = null; // publishes every spin to listeners, if set
+	private JackpotPool jackpot = null; // progressive jackpot shared with other games, if set
+	private int[] handTally = null; // winning lines by hand type on the last spin, once metrics are set
+	
+	private int[] lineResults = NO_RESULTS; // packed hand on each line from the last spin, grown on demand
 	
 	public static void main(String[] args){
 		Slots game0 = new Slots();
@@ -62,774 +79,495 @@ public class Slots {
 	}
 	
 	public Slots(){ // create a new game of slots.
-		betLines = initBetLines;
-		bet = initBet;
-		balance = initBalance;
-		autoSpin = initAutoSpin;
-		blt = initializeBetlineTable();
+		this(RandomSource.create());
 	}
-
-	private Slots(int bl, int b, int ba, int as){ // debug method to create a custom game
+	
+	public Slots(RandomSource rng){ // create a new game of slots that draws from the specified source.
+		this(Geometry.STANDARD, rng);
+	}
+	
+	public Slots(Geometry g, RandomSource rng){ // same as above, on a machine of the specified shape.
+		this(g, initBetLines, initBet, initBalance, initAutoSpin, rng);
+	}
+	
+	Slots(int bl, int b, int ba, int as, RandomSource rng){ // debug method to create a custom game
+		this(Geometry.STANDARD, bl, b, ba, as, rng);
+	}
+	
+	Slots(Geometry g, int bl, int b, int ba, int as, RandomSource rng){ // same as above, of the specified shape.
+		geometry = g;
+		rows = g.getRows();
+		lineCells = g.cells();
+		board = new byte[g.size()];
 		betLines = bl;
 		bet = b;
 		balance = ba;
 		autoSpin = as;
-		blt = initializeBetlineTable();
-	}
-	
-	public void spin(){ // simulates one "pull" of the "lever"
-		if(betLines >= 1 &&
-		   bet >= 1 &&
-		   balance >= (bet*betLines)){ // make sure there is enough money for this to be ok.
-			balance -= bet*betLines;
-			deck.shuffle(SHUFFLES); // shuffle the deck then deal them out.
-			for(int i = 0; i < COLUMNS; i++){
-				for(int j = 0; j < ROWS; j++){
-					reels[i][j] = deck.deal();
-				}
+		this.rng = rng;
+	}
+	
+	public int spin(){ // simulates one "pull" of the "lever". returns the amount won.
+		if(canSpin()){ // make sure there is enough money for this to be ok.
+			return settle();
+		} else { // tell the listeners, if any. Nothing is printed from the game's thread.
+			SpinEventRing ring = events;
+			SpinEvent e = ring == null ? null : ring.claim();
+			if(e != null){
+				e.refuse(this, session);
+				ring.publish();
 			}
-			addWinnings(betLines); // add money to the balance in accordance with bet lines.
-		} else {
-			System.out.println("Insufficient funds");
+			return 0;
 		}
 	}
-
-	private int addWinnings(int lines){ // add money to the balance in accordance with bet lines.
-		int winnings = 0;
-		for(int i = 0; i < lines; i++){ // for each bet line
-			ArrayList<Integer> line = blt.get(i);
-			ArrayList<Card> hand = new ArrayList<>();
-			for(int j = 0; j < line.size(); j++){ // for each reel on the win line
-				Card a = reels[j][line.get(j)]; // get the card at each reel on the win-line
-				hand.add(a); // add it to a hand
+	
+	public AutoSpinResult autoSpin(int spins){ // spins up to the specified number of times, until the money runs out.
+		return autoSpin(spins, StopConditions.UNLIMITED);
+	}
+	
+	public AutoSpinResult autoSpin(int spins, StopConditions stop){ // same as above, ending early on a stop condition.
+		// Runs back to back with nothing printed; the totals come back in one result.
+		// autoSpin counts down as it goes, so getAutoSpin() shows the spins left.
+		if(spins < 0){
+			throw new IllegalArgumentException("Illegal number of spins");
+		}
+		autoSpin = spins;
+		int start = balance;
+		int run = 0;
+		int wins = 0;
+		long wagered = 0;
+		long paid = 0;
+		int biggest = 0;
+		int reason = AutoSpinResult.COMPLETED;
+		while(autoSpin > 0){
+			int wager = getTotalBet();
+			if(!canSpin()){
+				reason = AutoSpinResult.INSUFFICIENT_FUNDS;
+				break;
+			} else if(stop.getBalanceFloor() != StopConditions.NONE && balance - wager < stop.getBalanceFloor()){
+				reason = AutoSpinResult.BALANCE_FLOOR;
+				break;
+			} else if(stop.getLossLimit() != StopConditions.NONE &&
+					  (long) start - balance + wager > stop.getLossLimit()){
+				reason = AutoSpinResult.LOSS_LIMIT;
+				break;
+			}
+			int winnings = settle();
+			autoSpin--;
+			run++;
+			wagered += wager;
+			paid += winnings;
+			if(winnings > 0){
+				wins++;
+				biggest = Math.max(biggest, winnings);
+			}
+			if(stop.getSingleWin() != StopConditions.NONE && winnings >= stop.getSingleWin()){
+				reason = AutoSpinResult.SINGLE_WIN;
+				break;
 			}
-			winnings += winnings(hand); // add winnings from each hand on each line
 		}
-		System.out.println("You gained $" + winnings);
-		return winnings;
+		autoSpin = 0;
+		return new AutoSpinResult(run, wins, wagered, paid, biggest, balance, reason);
 	}
 	
-	private int winnings(ArrayList<Card> hand){ // returns the value of the specified hand.
-		ArrayList<Integer> handType = handType(hand); // get the type of hand
-		return handValue(handType); // get the value of the hand
+	private int settle(){ // takes the bet, spins and pays out. The balance must cover the bet.
+		SlotsMetrics m = metrics;
+		long start = m == null ? 0 : System.nanoTime();
+		int wager = getTotalBet();
+		balance -= wager;
+		long seed = rng.getSeed(); // where the random numbers for this spin start
+		long position = rng.getPosition();
+		int winnings = Math.multiplyExact(bet, play()); // pay out each line at the bet amount. setBet keeps this in range
+		int won = 0; // from the jackpot
+		JackpotPool pool = jackpot;
+		if(pool != null){
+			pool.contribute(wager);
+			if(hasRoyal()){ // one award per spin, however many lines show a royal
+				won = pool.claim();
+				winnings = (int) Math.min(Integer.MAX_VALUE, (long) winnings + won);
+			}
+		}
+		balance = (int) Math.min(Integer.MAX_VALUE, (long) balance + winnings); // never wrap around
+		if(journal != null){
+			journal.append(session, seed, position, this, bet, winnings, won);
+		}
+		SpinEventRing ring = events;
+		if(ring != null){
+			SpinEvent e = ring.claim(); // null if the listeners are a whole ring behind. Never waits
+			if(e != null){
+				e.fill(this, session, seed, position, wager, winnings, won);
+				ring.publish();
+			}
+		}
+		if(m != null){
+			tallyHands();
+			m.recordSpin(System.nanoTime() - start, wager, winnings, handTally);
+		}
+		return winnings;
 	}
 	
-	private ArrayList<Integer> handType(ArrayList<Card> hand){ // determines the type of poker hand presented.
-		// put the hand in order
-		orderHand(hand);
-		
-		int jokerCount = 0;
-		for(int i = 0; i < hand.size(); i++){ // check each card in the hand for Joker
-			Card cardA = hand.get(i);
-			if(cardA.getSuit() == Card.JOKER){
-				jokerCount++;
+	int play(){ // deals a new board and scores it for a bet of 1, without touching the balance.
+		SlotsMetrics m = metrics;
+		long start = m == null ? 0 : System.nanoTime();
+		if(outcomes != null && betLines == 1 && !ways && strips == null){ // the hand is picked first; nothing to evaluate
+			int packed = outcomes.deal(rng, board, lineCells);
+			undealt = geometry.unread(1);
+			if(undealt.length == 0){
+				undealt = null;
 			}
-		} // we now know how many jokers in the hand.
-		
-		ArrayList<Integer> type = new ArrayList<>();
-		int winRank = 1;
-		
-		// winRank gets the winning(non-joker) rank card in hand
-		// winRank applies to 1 pair, 2 pair, 3 of a kind, full house, and 4 of a kind.
-		
-		if(royalFlush(hand,jokerCount)){ // check for a royal flush
-			type.add(ROYAL_FLUSH);
-		} else if(straightFlush(hand,jokerCount)){ // check for a straight flush
-			type.add(STRAIGHT_FLUSH);
-		} else if(fourOfAKind(hand,jokerCount)){ // check for a 4 of a kind
-			type.add(FOUR_OF_A_KIND);
-			winRank = winRank(hand,FOUR_OF_A_KIND);
-			type.add(winRank);
-		} else if(fullHouse(hand,jokerCount)){ // check for a full house
-			type.add(FULL_HOUSE);
-			winRank = winRank(hand,FULL_HOUSE);
-			type.add(winRank);
-		} else if(flush(hand,jokerCount)){ // check for a flush
-			type.add(FLUSH);
-		} else if(straight(hand,jokerCount)){ // check for a straight
-			type.add(STRAIGHT);
-		} else if(threeOfAKind(hand,jokerCount)){ // check for a 3 of a kind
-			type.add(THREE_OF_A_KIND);
-			winRank = winRank(hand,THREE_OF_A_KIND);
-			type.add(winRank);
-		} else if(twoPair(hand,jokerCount)){ // check for a 2 pair
-			type.add(TWO_PAIR);
-			winRank = winRank(hand,TWO_PAIR);
-			type.add(winRank);
-		} else if(pair(hand,jokerCount)){ // check for a 1 pair
-			type.add(ONE_PAIR);
-			winRank = winRank(hand,ONE_PAIR);
-			type.add(winRank);
-		}
-		return type; // returns an empty list if no winning hand.
-	}
-	
-	private int winRank(ArrayList<Card> hand, int type) { // given a hand and type,
-		// determine the rank of the top winning card. This method assumes the type is valid.
-		switch (type){// type can be 1 or 2 pair. 3 or 4 of a kind. or full house.
-		case ONE_PAIR:
-			if(hand.get(0).getSuit() == Card.JOKER){ // there can only be one Joker for there to be a pair win.
-				return hand.get(1).getRank(); // return the highest non-Joker card
-			} else { // if no Jokers, we need to see which cards have the same rank. iterate
-				int i = 0;
-				Card a = new Card();
-				Card b;
-				while(i < hand.size()){ // iterate through the hand
-					a = hand.get(i);
-					b = hand.get(i+1);
-					if(a.getRank() != b.getRank()){ // check the ranks
-						i++;
-					} else {
-						break;
-					}
+			sampled = undealt != null; // the deck only matters once someone looks at the rest
+			int[] results = results();
+			results[0] = packed;
+			if(verifyOutcomes){
+				score(rows, lineCells, pays, board, 1, false, results);
+				if(results[0] != packed){
+					throw new IllegalStateException("Board doesn't show the sampled hand");
 				}
-				return a.getRank();
 			}
-		case TWO_PAIR:
-			int i = 0; // no jokers possible for this type.
-			Card a = new Card();
-			Card b;
-			while(i < hand.size()){
-				a = hand.get(i);
-				b = hand.get(i+1);
-				if(a.getRank() != b.getRank()){ // iterate through the hand
-					i++;
-				} else {
-					break;
-				}
+			if(m != null){
+				m.recordShuffle(System.nanoTime() - start);
 			}
-			return a.getRank();
-		case THREE_OF_A_KIND:
-			if(hand.get(0).getSuit() == Card.JOKER){ // There could be up to two Jokers for this hand type
-				if(hand.get(1).getSuit() == Card.JOKER){ // if there are two Jokers, just find the highest card rank.
-					return hand.get(2).getRank();
-				}
-			} else { // one or no Jokers - either way, there will be two of the same rank present
-				int j = 0;
-				Card c = new Card();
-				Card d;
-				while(j < hand.size()){
-					c = hand.get(j);
-					d = hand.get(j+1);
-					if(c.getRank() != d.getRank()){ // iterate through the hand
-						j++;
-					} else {
-						break;
-					}
-				}
-				return c.getRank();
+			return pays[packed];
+		}
+		sampled = false;
+		if(strips != null){ // one random stop per column, no deck involved
+			strips.spin(rng, board);
+			undealt = null;
+		} else if(ways){
+			SlotsDeck d = deck();
+			d.reset(); // gather the last spin's cards back up before shuffling.
+			d.partialShuffle(board.length); // only the cards we deal need shuffling.
+			for(int i = 0; i < board.length; i++){
+				board[i] = (byte) d.dealCode(); // columns are laid out one after another
 			}
-		case FOUR_OF_A_KIND:
-			if(hand.get(0).getSuit() == Card.JOKER) { // There could be up to 3 Jokers for this hand type
-				if(hand.get(2).getSuit() == Card.JOKER) { // if there are three Jokers, just find the highest rank.
-					return hand.get(3).getRank();
-				}
-			} else { // 0, 1, or 2 Jokers - there should be at least two of the same rank.
-				int j = 0;
-				Card c = new Card();
-				Card d;
-				while(j < hand.size()){
-					c = hand.get(j);
-					d = hand.get(j+1);
-					if(c.getRank() != d.getRank()){ // iterate through the hand
-						j++;
-					} else {
-						break;
-					}
-				}
-				return c.getRank();
+			undealt = null;
+		} else { // only deal the cells the bet lines read. The rest come later, if anyone looks
+			SlotsDeck d = deck();
+			d.reset();
+			int[] read = geometry.read(betLines);
+			d.partialShuffle(read.length);
+			for(int i = 0; i < read.length; i++){
+				board[read[i]] = (byte) d.dealCode();
 			}
-		case FULL_HOUSE: // should be the same as Three of a Kind
-			if(hand.get(0).getSuit() == Card.JOKER){ // There could be up to two Jokers for this hand type
-				if(hand.get(1).getSuit() == Card.JOKER){ // if there are two Jokers, just find the highest card rank.
-					return hand.get(2).getRank();
-				}
-			} else { // one or no Jokers - either way, there will be two of the same rank present
-				int j = 0;
-				Card c = new Card();
-				Card d;
-				while(j < hand.size()){
-					c = hand.get(j);
-					d = hand.get(j+1);
-					if(c.getRank() != d.getRank()){ // iterate through the hand
-						j++;
-					} else {
-						break;
-					}
-				}
-				return c.getRank();
+			undealt = geometry.unread(betLines);
+			if(undealt.length == 0){
+				undealt = null;
 			}
 		}
-		return -1; // default case if errors occur
+		if(m == null){
+			return score(rows, lineCells, pays, board, betLines, ways, results());
+		}
+		long dealt = System.nanoTime();
+		int winnings = score(rows, lineCells, pays, board, betLines, ways, results());
+		m.recordShuffle(dealt - start);
+		m.recordEvaluate(System.nanoTime() - dealt);
+		return winnings;
 	}
-
-	private boolean pair(ArrayList<Card> hand, int jokerCount) {
-		if(jokerCount > 1){ // more than 1 Joker means at least 3 of a kind
-			return false;
-		} else if(jokerCount == 1){ // must be a match with only one Joker
-			return true;
-		} else { // must be dealt only a single pair
-			int i = 0;
-			Card a = hand.get(i);
-			int rank = a.getRank();
-			while(a.getRank()!= rank && a != null){ // iterate through the hand
-				i++;
-				a = hand.get(i);
-			}
-			if(a == null){
-				return false;
-			}
-			return true;
+	
+	private SlotsDeck deck(){ // returns the deck, creating it on the first deal.
+		if(deck == null){
+			deck = new SlotsDeck(geometry, rng);
 		}
+		return deck;
 	}
-
-	private boolean twoPair(ArrayList<Card> hand, int jokerCount) {
-		if(jokerCount > 0){ // must be dealt two pair
-			return false;
-		} else {
-			int i = 0;
-			int count = 0;
-			Card a = hand.get(i);
-			Card b = hand.get(i+1);
-			while(b != null && count < 2){ // keep track of pairs while iterating
-				if(a.getRank() == b.getRank()){
-					count++;
-					i++;
-				}
-				i++;
-				a = hand.get(i);
-				b = hand.get(i+1);
-			}
-			if(count == 2){
-				return true;
-			}
-			return false;
+	
+	private int[] results(){ // returns lineResults, grown to hold every line the current mode can score.
+		int n = ways ? geometry.getWays() : geometry.getLineCount();
+		if(lineResults.length < n){
+			lineResults = Arrays.copyOf(lineResults, n);
 		}
+		return lineResults;
 	}
-
-	private boolean threeOfAKind(ArrayList<Card> hand, int jokerCount) {
-		if(jokerCount > 2){ // more than 2 Jokers means at least 4 of a kind
-			return false;
-		} else if(jokerCount == 2){ // matches any card in hand with 2 Jokers
-			return true;
-		} else if (jokerCount == 1){ // take out the Joker and find a pair
-			ArrayList<Card> newHand = hand;
-			newHand.remove(0);
-			return pair(newHand,0);
-		} else { // check all options for spans of 3 with the same rank
-			if(hand.get(0) != null && hand.get(2) != null && hand.get(0).getRank() == hand.get(2).getRank() ||
-			   hand.get(2) != null && hand.get(4) != null && hand.get(2).getRank() == hand.get(4).getRank() ||
-			   hand.get(1) != null && hand.get(3) != null && hand.get(1).getRank() == hand.get(3).getRank()){
+	
+	private boolean hasRoyal(){ // true if any line on the last spin was a royal flush.
+		int royal = HandEvaluator.pack(ROYAL_FLUSH, 0);
+		int lines = getActiveLines();
+		for(int i = 0; i < lines; i++){
+			if(lineResults[i] == royal){
 				return true;
 			}
 		}
 		return false;
 	}
-
-	private boolean straight(ArrayList<Card> hand, int jokerCount) {
-		if(jokerCount > 3){
-			return false; // more than 3 jokers means either a straight flush or royal flush
-		} else {
-			int i = jokerCount;
-			int j = i;
-			Card a = hand.get(j);
-			Card b = hand.get(j+1);
-			while(b != null && i >= 0){
-				int diff = a.getRank() - b.getRank() - 1;
-				if(diff > i){ // can't be connected by Jokers
-					return false;
-				} else {
-					i -= diff; // take out as many Jokers as needed to make the straight
-					j++; // go to next cards
-					a = b;
-					b = hand.get(j+1);
-				}
-			} // If we got through the whole hand, then we have a straight!
-			return true;
+	
+	private void tallyHands(){ // counts the winning lines on the last spin by hand type.
+		for(int i = 0; i < HAND_TYPES; i++){
+			handTally[i] = 0;
+		}
+		int lines = getActiveLines();
+		for(int i = 0; i < lines; i++){
+			int type = HandEvaluator.handClass(lineResults[i]);
+			if(type != HIGH_CARD){
+				handTally[type]++;
+			}
 		}
 	}
-
-	private boolean flush(ArrayList<Card> hand, int jokerCount) {
-		if(jokerCount > 3){
-			return false; // more than 3 Jokers means a straight or royal flush
-		} else {
-			int i = jokerCount;
-			Card a = hand.get(i);
-			int suit = a.getSuit();
-			while(a != null){
-				if(a.getSuit() != suit){ // cards not the same suit
-					return false;
-				} else {
-					i++; // go to the next cards
-					a = hand.get(i);
-				}
-			} // If we got through the whole hand, then we have a flush!
-			return true;
+	
+	int addWinnings(int lines){ // add money to the balance in accordance with bet lines.
+		completeBoard(); // other line counts may read cells the spin didn't deal
+		return score(rows, lineCells, pays, board, lines, false, results());
+	}
+	
+	static int score(Geometry g, Paytable p, byte[] board, int lines, boolean ways, int[] results){ // scores a board for a bet of 1.
+		return score(g.getRows(), g.cells(), p.pays(), board, lines, ways, results);
+	}
+	
+	private static int score(int rows, int[] cells, int[] pays, byte[] board, int lines, boolean ways, int[] results){
+		// results gets the packed hand on each line. board holds card codes, column after column.
+		// Every line is five cards whatever the shape, so a spin costs the same per line on any machine.
+		if(ways){
+			return waysWinnings(rows, pays, board, results, 0, 0, 0, 0); // every row combination is a line
+		}
+		int winnings = 0;
+		for(int i = 0; i < lines; i++){ // for each bet line
+			int cell = i * COLUMNS; // get the card at each reel on the win-line
+			int handType = HandEvaluator.evaluate(board[cells[cell]],
+					board[cells[cell + 1]],
+					board[cells[cell + 2]],
+					board[cells[cell + 3]],
+					board[cells[cell + 4]]); // get the type of hand with a single table lookup
+			results[i] = handType;
+			winnings += pays[handType]; // add winnings from each hand on each line, straight from the paytable
 		}
+		return winnings;
 	}
-
-	private boolean fullHouse(ArrayList<Card> hand, int jokerCount) {
-		if(jokerCount > 1){
-			return false; // more than 1 Joker means at least four of a kind
-		} else if(jokerCount == 1){ // must be two pair with a Joker
-			ArrayList<Card> newHand = hand;
-			newHand.remove(0); // remove the Joker from the hand and check for 2 pair
-			return twoPair(newHand,0);
-		} else { // no Jokers. Must be a full-dealt hand
-			Card a = hand.get(0);
-			Card b = hand.get(1);
-			if(a.getRank() != b.getRank()){ // first two cards must match
-				return false;
-			} else {
-				a = hand.get(3);
-				b = hand.get(4);
-				if(a.getRank() != b.getRank()){ // last two cards must match
-					return false;
-				} else {
-					a = hand.get(0);
-					if (hand.get(2).getRank() != a.getRank() &&
-						hand.get(2).getRank() != b.getRank()){ // middle card must match something
-						return false;
-					} else { // if we get here, we have a full house!
-						return true;
-					}
+	
+	private static int waysWinnings(int rows, int[] pays, byte[] board, int[] results, int column, int way, int key,
+			int suits){
+		// Walks every row combination, column by column. Lines that pick the same rows in the
+		// first columns share the work for those columns: the partial rank key and suit mask
+		// are built once per prefix, like a trie.
+		if(column == COLUMNS){
+			int handType = HandEvaluator.lookup(key, suits); // get the type of hand with a single table lookup
+			results[way] = handType; // ways are numbered by their Betline code
+			return pays[handType];
+		}
+		int winnings = 0;
+		for(int j = 0; j < rows; j++){
+			int code = board[column * rows + j];
+			winnings += waysWinnings(rows, pays, board, results, column + 1, way * rows + j, HandEvaluator.extend(key, code),
+					suits | HandEvaluator.suitBit(code));
+		}
+		return winnings;
+	}
+	
+	private void completeBoard(){ // deals the cells the last spin skipped.
+		// Every card dealt so far came off the top of a partly shuffled deck, so the rest of the
+		// deck is still in random order from the board's point of view: dealing now gives the
+		// same distribution as dealing the whole board up front.
+		int[] cells = undealt;
+		if(cells != null){
+			if(sampled){ // take the sampled line's cards out first
+				deck().reset();
+				for(int i = 0; i < COLUMNS; i++){
+					deck.deal(Card.valueOf(board[lineCells[i]]));
 				}
+				sampled = false;
 			}
+			deck.partialShuffle(cells.length);
+			for(int i = 0; i < cells.length; i++){
+				board[cells[i]] = (byte) deck.dealCode();
+			}
+			undealt = null;
 		}
 	}
-
-	private boolean fourOfAKind(ArrayList<Card> hand, int jokerCount) {
-		if(jokerCount > 3){ // more than 3 Jokers means a straight or royal flush
-			return false;
-		} else if(jokerCount == 3){ // can match any other card in the hand
-			return true;
-		} else if(jokerCount == 2){ // 2 Jokers can match a pair in the hand
-			ArrayList<Card> newHand = hand;
-			newHand.remove(0);
-			newHand.remove(0);
-			return pair(newHand,0);
-		} else if(jokerCount == 1){ // 1 Joker can match a 3 of a kind in the hand
-			ArrayList<Card> newHand = hand;
-			newHand.remove(0);
-			return threeOfAKind(newHand,0);
-		} else if(hand.get(0) != null && hand.get(3) != null && hand.get(0).getRank() == hand.get(3).getRank() ||
-			      hand.get(1) != null && hand.get(4) != null && hand.get(1).getRank() == hand.get(4).getRank()){
-			return true; // no Jokers. Must be dealt
-		} else {
-			return false;
+	
+	int lineResult(int line){ // packed hand on the specified bet line from the last spin.
+		return results()[line];
+	}
+	
+	static String handName(int type){ // returns a readable name for the specified hand type.
+		switch(type){
+		case ONE_PAIR: return "One Pair";
+		case TWO_PAIR: return "Two Pair";
+		case THREE_OF_A_KIND: return "Three of a Kind";
+		case STRAIGHT: return "Straight";
+		case FLUSH: return "Flush";
+		case FULL_HOUSE: return "Full House";
+		case FOUR_OF_A_KIND: return "Four of a Kind";
+		case STRAIGHT_FLUSH: return "Straight Flush";
+		case ROYAL_FLUSH: return "Royal Flush";
+		default: return "High Card";
 		}
 	}
-
-	private boolean straightFlush(ArrayList<Card> hand, int jokerCount) {
-		if(jokerCount > 4){ // more than 4 Jokers means an automatic royal flush
-			return false;
-		} else {
-			// first check if its a flush
-			int i = jokerCount;
-			Card a = hand.get(i);
-			int suit = a.getSuit();
-			while(a != null){
-				if(a.getSuit() != suit){ // cards not the same suit
-					return false;
-				} else {
-					i++; // go to the next cards
-					a = hand.get(i);
-				}
-			} // If we got through the whole hand, then we have a flush!
-			
-			// now check for the straight
-			i = jokerCount;
-			int j = i;
-			a = hand.get(j);
-			Card b = hand.get(j+1);
-			while(b != null && i >= 0){
-				int diff = a.getRank() - b.getRank() - 1;
-				if(diff > i){ // can't be connected by Jokers
-					return false;
-				} else {
-					i -= diff; // take out as many Jokers as needed to make the straight
-					j++; // go to next cards
-					a = b;
-					b = hand.get(j+1);
-				}
-			} // if we make it here, it's a straight flush!
+	
+	public int getActiveLines() { // returns the number of lines paid on each spin.
+		return ways ? geometry.getWays() : betLines;
+	}
+	
+	public boolean isWays() { // returns true if every row combination pays.
+		return ways;
+	}
+	
+	public void setWays(boolean w) { // pays every row combination (243 ways on 3x5) instead of the bet lines.
+		if(bet > maxBet(w, betLines, paytable)){
+			throw new IllegalArgumentException("Bet too big for ways");
 		}
-		return true;
+		ways = w;
 	}
-
-	private boolean royalFlush(ArrayList<Card> hand, int jokerCount) {
-		if(jokerCount == 5){ // automatic royal flush
-			return true;
-		} else { // need to iterate through the hand and see what we have
-			// all non-Jokers must be rank 10-A
-			if(hand.get(4).getRank() < 10){ // cards in order. last must be > 10 to ensure rank
-				return false;
-			} else {
-				boolean have10 = false;
-				boolean haveJ = false;
-				boolean haveQ = false;
-				boolean haveK = false;
-				boolean haveA = false;
-				int i = jokerCount;
-				Card a = hand.get(i);
-				int suit = a.getSuit();
-				while(a != null){ // iterate through the hand and ensure we have only 1 of each type
-					switch(a.getRank()){
-					case 10:
-						if(!have10 && a.getSuit() == suit){
-							have10 = true;
-						} else {
-							return false;
-						}
-					case Card.JACK:
-						if(!haveJ && a.getSuit() == suit){
-							haveJ = true;
-						} else {
-							return false;
-						}
-					case Card.QUEEN:
-						if(!haveQ && a.getSuit() == suit){
-							haveQ = true;
-						} else {
-							return false;
-						}
-					case Card.KING:
-						if(!haveK && a.getSuit() == suit){
-							haveK = true;
-						} else {
-							return false;
-						}
-					case Card.ACE:
-						if(!haveA && a.getSuit() == suit){
-							haveA = true;
-						} else {
-							return false;
-						}
-					}
-					i++;
-					a = hand.get(i);
-				}
-				return true;
-			}
+	
+	public void setJournal(SpinJournal j, long s) { // records every spin to the journal under session id s.
+		journal = j;
+		session = s;
+	}
+	
+	public Paytable getPaytable() { // returns what each hand pays.
+		return paytable;
+	}
+	
+	public void setPaytable(Paytable p) { // changes what each hand pays, from the next spin on.
+		if(bet > maxBet(ways, betLines, p)){
+			throw new IllegalArgumentException("Bet too big for the paytable");
 		}
+		paytable = p;
+		pays = p.pays();
 	}
-
-	private void orderHand(ArrayList<Card> hand){ // puts a poker hand in Rank order.
-		int size = hand.size();
-		for(int i = 0; i < size-1; i++){ // for each card in the hand, check it's suit and rank to order them
-			Card cardA = hand.get(i);
-			Card cardB = hand.get(i+1);
-			if(cardA.getSuit() != Card.JOKER){ // check if either is a Joker
-				if(cardB.getSuit() == Card.JOKER || cardA.getRank() < cardB.getRank()){ //if so, put them in front.
-					Card temp = cardA;// if card b is a Joker and a is not, swap them.
-					hand.set(i, cardB); // or if card b has a higher rank.
-					hand.set(i+1, temp);
-				} // if neither above case is true, then we are fine!
-			}
-		}// by this point, we should have the hand in sorted order, from rank high to low.
-	}
-	
-	private int handValue(ArrayList<Integer> type){ // calculates the value of the hand based on type and win rank
-		int value = 0;
-		if(type.get(0) != null){
-			switch (type.get(0)){ // gets the type of poker hand. default is high card. (no win)
-			// value based on probability of poker hand
-			case ONE_PAIR: value = 2 + type.get(1); break;
-			case TWO_PAIR: value = 20 + type.get(1); break;
-			case THREE_OF_A_KIND: value = 50 + type.get(1); break;
-			case STRAIGHT: value = 250; break;
-			case FLUSH: value = 500; break;
-			case FULL_HOUSE: value = 700 + 10 * type.get(1); break;
-			case FOUR_OF_A_KIND: value = 4200 + 100 * type.get(1); break;
-			case STRAIGHT_FLUSH: value = 72000; break;
-			case ROYAL_FLUSH: value = 650000; break;
-			default: break;
+	
+	public ReelStrips getReelStrips() { // returns the reel strips being spun, or null if dealing from the deck.
+		return strips;
+	}
+	
+	public void setReelStrips(ReelStrips r) { // spins r from the next spin on. null goes back to the deck.
+		if(r != null && r.getGeometry() != geometry){
+			throw new IllegalArgumentException("Strips don't match the game");
+		}
+		strips = r;
+	}
+	
+	public OutcomeTable getOutcomes() { // returns the table one line spins are sampled from, or null if they're dealt.
+		return outcomes;
+	}
+	
+	public void setOutcomes(OutcomeTable t, boolean verify) { // samples one line spins from t. Other spins are dealt as usual.
+		// With verify set, every sampled board is scored the usual way too, and a board that
+		// doesn't show its hand throws IllegalStateException.
+		if(t != null && t.getGeometry() != geometry){
+			throw new IllegalArgumentException("Outcomes don't match the game");
+		}
+		outcomes = t;
+		verifyOutcomes = verify;
+	}
+	
+	public void setEvents(SpinEventRing r, long s) { // publishes every spin to r under session id s.
+		if(r != null && r.getGeometry() != geometry){
+			throw new IllegalArgumentException("Ring doesn't match the game");
+		}
+		events = r;
+		session = s;
+	}
+	
+	public void setJackpot(JackpotPool p) { // feeds every bet into p and pays it out on a royal flush. Many games may share one.
+		jackpot = p;
+	}
+	
+	public void setMetrics(SlotsMetrics m) { // reports spins and timings to m. Many games may share one.
+		if(m != null && handTally == null){
+			handTally = new int[HAND_TYPES];
+		}
+		metrics = m;
+	}
+	
+	public boolean canSpin() { // returns true if the balance covers the next spin.
+		int lines = getActiveLines();
+		return lines >= 1 &&
+			   bet >= 1 &&
+			   balance >= (long) bet * lines;
+	}
+	
+	public int getTotalBet() { // returns the amount taken from the balance on each spin.
+		return Math.multiplyExact(bet, getActiveLines()); // setBet keeps this in range
+	}
+	
+	public int getMaxBet() { // returns the biggest bet allowed on each line, in the current mode and number of bet lines.
+		return maxBet(ways, betLines, paytable);
+	}
+	
+	private int maxBet(boolean w, int bl, Paytable p) { // the biggest bet whose best possible spin still fits in an int.
+		// Every active line could pay the top pay at once, e.g. a board full of Jokers.
+		int lines = Math.max(1, w ? geometry.getWays() : bl);
+		return Integer.MAX_VALUE / (Math.max(1, p.getMaxPay()) * lines); // Paytable.MAX_PAY keeps the product in range
+	}
+	
+	public int getBet() { // returns the bet on each line.
+		return bet;
+	}
+	
+	public void setBet(int b) { // sets the bet on each line.
+		if(b < 1 || b > getMaxBet()){
+			throw new IllegalArgumentException("Illegal bet");
+		}
+		bet = b;
+	}
+	
+	public int getBetLines() { // returns the number of bet lines played.
+		return betLines;
+	}
+	
+	public void setBetLines(int bl) { // sets the number of bet lines played.
+		if(bl < 1 || bl > geometry.getLineCount()){
+			throw new IllegalArgumentException("Illegal number of bet lines");
+		}
+		if(bet > maxBet(ways, bl, paytable)){
+			throw new IllegalArgumentException("Bet too big for that many lines");
+		}
+		betLines = bl;
+	}
+	
+	void configure(int b, boolean w, int bl) { // sets the bet, ways and bet lines together, or none of them if any is illegal.
+		if(bl < 1 || bl > geometry.getLineCount()){
+			throw new IllegalArgumentException("Illegal number of bet lines");
+		}
+		if(b < 1 || b > maxBet(w, bl, paytable)){
+			throw new IllegalArgumentException("Illegal bet");
+		}
+		bet = b;
+		ways = w;
+		betLines = bl;
+	}
+	
+	public int getAutoSpin() { // returns the automatic spins left in the current run.
+		return autoSpin;
+	}
+	
+	public int getBalance() { // returns the player's current balance.
+		return balance;
+	}
+	
+	void setBalance(int ba) { // debug method to top up the balance.
+		balance = ba;
+	}
+	
+	byte cardCode(int cell) { // returns the code of the card at the specified board index.
+		if(undealt != null){
+			completeBoard();
+		}
+		return board[cell];
+	}
+	
+	void copyBoard(byte[] dst) { // copies the card codes on the reels, one column after another.
+		completeBoard();
+		System.arraycopy(board, 0, dst, 0, board.length);
+	}
+	
+	void copyLineResults(int[] dst) { // copies the packed hand on each active line from the last spin.
+		System.arraycopy(results(), 0, dst, 0, getActiveLines());
+	}
+	
+	public Card[][] getReels() { // returns the cards showing on the reels, one array per column.
+		completeBoard();
+		Card[][] reels = new Card[COLUMNS][rows];
+		for(int i = 0; i < COLUMNS; i++){
+			for(int j = 0; j < rows; j++){
+				reels[i][j] = Card.valueOf(board[i * rows + j]);
 			}
 		}
-		return value;
-	}
-	
-	private ArrayList<ArrayList<Integer>> initializeBetlineTable() { // creates the bet lines
-		ArrayList<ArrayList<Integer>> table = new ArrayList<>(); // there are only 35 "good" ones.
-		// line 1
-		ArrayList<Integer> line = new ArrayList<>();
-		for(int i = 0; i < 5; i++){
-			line.add(MID);
-		}
-		table.add(line);
-		line.clear();
-		// line 2
-		for(int i = 0; i < 5; i++){
-			line.add(HIGH);
-		}
-		table.add(line);
-		line.clear();
-		// line 3
-		for(int i = 0; i < 5; i++){
-			line.add(LOW);
-		}
-		table.add(line);
-		line.clear();
-		// line 4
-		line.add(MID);
-		line.add(MID);
-		line.add(HIGH);
-		line.add(MID);
-		line.add(MID);
-		table.add(line);
-		line.clear();
-		// line 5
-		line.add(MID);
-		line.add(MID);
-		line.add(LOW);
-		line.add(MID);
-		line.add(MID);
-		table.add(line);
-		line.clear();
-		// line 6
-		line.add(HIGH);
-		line.add(HIGH);
-		line.add(MID);
-		line.add(HIGH);
-		line.add(HIGH);
-		table.add(line);
-		line.clear();
-		// line 7
-		line.add(LOW);
-		line.add(LOW);
-		line.add(MID);
-		line.add(LOW);
-		line.add(LOW);
-		table.add(line);
-		line.clear();
-		// line 8
-		line.add(MID);
-		line.add(HIGH);
-		line.add(MID);
-		line.add(HIGH);
-		line.add(MID);
-		table.add(line);
-		line.clear();
-		// line 9
-		line.add(MID);
-		line.add(LOW);
-		line.add(MID);
-		line.add(LOW);
-		line.add(MID);
-		table.add(line);
-		line.clear();
-		// line 10
-		line.add(HIGH);
-		line.add(MID);
-		line.add(HIGH);
-		line.add(MID);
-		line.add(HIGH);
-		table.add(line);
-		line.clear();
-		// line 11
-		line.add(LOW);
-		line.add(MID);
-		line.add(LOW);
-		line.add(MID);
-		line.add(LOW);
-		table.add(line);
-		line.clear();
-		// line 12
-		line.add(MID);
-		line.add(HIGH);
-		line.add(HIGH);
-		line.add(HIGH);
-		line.add(MID);
-		table.add(line);
-		line.clear();
-		// line 13
-		line.add(MID);
-		line.add(LOW);
-		line.add(LOW);
-		line.add(LOW);
-		line.add(MID);
-		table.add(line);
-		line.clear();
-		// line 14
-		line.add(HIGH);
-		line.add(MID);
-		line.add(MID);
-		line.add(MID);
-		line.add(HIGH);
-		table.add(line);
-		line.clear();
-		// line 15
-		line.add(LOW);
-		line.add(MID);
-		line.add(MID);
-		line.add(MID);
-		line.add(LOW);
-		table.add(line);
-		line.clear();
-		// line 16
-		line.add(MID);
-		line.add(HIGH);
-		line.add(MID);
-		line.add(LOW);
-		line.add(MID);
-		table.add(line);
-		line.clear();
-		// line 17
-		line.add(MID);
-		line.add(LOW);
-		line.add(MID);
-		line.add(HIGH);
-		line.add(MID);
-		table.add(line);
-		line.clear();
-		// line 18
-		line.add(HIGH);
-		line.add(MID);
-		line.add(LOW);
-		line.add(MID);
-		line.add(HIGH);
-		table.add(line);
-		line.clear();
-		// line 19
-		line.add(LOW);
-		line.add(MID);
-		line.add(HIGH);
-		line.add(MID);
-		line.add(LOW);
-		table.add(line);
-		line.clear();
-		// line 20
-		line.add(HIGH);
-		line.add(HIGH);
-		line.add(MID);
-		line.add(LOW);
-		line.add(LOW);
-		table.add(line);
-		line.clear();
-		// line 21
-		line.add(LOW);
-		line.add(LOW);
-		line.add(MID);
-		line.add(HIGH);
-		line.add(HIGH);
-		table.add(line);
-		line.clear();
-		// line 22
-		line.add(HIGH);
-		line.add(MID);
-		line.add(MID);
-		line.add(MID);
-		line.add(LOW);
-		table.add(line);
-		line.clear();
-		// line 23
-		line.add(LOW);
-		line.add(MID);
-		line.add(MID);
-		line.add(MID);
-		line.add(HIGH);
-		table.add(line);
-		line.clear();
-		// line 24
-		line.add(HIGH);
-		line.add(HIGH);
-		line.add(LOW);
-		line.add(HIGH);
-		line.add(HIGH);
-		table.add(line);
-		line.clear();
-		// line 25
-		line.add(LOW);
-		line.add(LOW);
-		line.add(HIGH);
-		line.add(LOW);
-		line.add(LOW);
-		table.add(line);
-		line.clear();
-		// line 26
-		line.add(HIGH);
-		line.add(LOW);
-		line.add(MID);
-		line.add(LOW);
-		line.add(HIGH);
-		table.add(line);
-		line.clear();
-		// line 27
-		line.add(LOW);
-		line.add(HIGH);
-		line.add(MID);
-		line.add(HIGH);
-		line.add(LOW);
-		table.add(line);
-		line.clear();
-		// line 28
-		line.add(HIGH);
-		line.add(LOW);
-		line.add(HIGH);
-		line.add(LOW);
-		line.add(HIGH);
-		table.add(line);
-		line.clear();
-		// line 29
-		line.add(LOW);
-		line.add(HIGH);
-		line.add(LOW);
-		line.add(HIGH);
-		line.add(LOW);
-		table.add(line);
-		line.clear();
-		// line 30
-		line.add(HIGH);
-		line.add(LOW);
-		line.add(LOW);
-		line.add(LOW);
-		line.add(HIGH);
-		table.add(line);
-		line.clear();
-		// line 31
-		line.add(LOW);
-		line.add(HIGH);
-		line.add(HIGH);
-		line.add(HIGH);
-		line.add(LOW);
-		table.add(line);
-		line.clear();
-		// line 32
-		line.add(HIGH);
-		line.add(LOW);
-		line.add(MID);
-		line.add(HIGH);
-		line.add(LOW);
-		table.add(line);
-		line.clear();
-		// line 33
-		line.add(LOW);
-		line.add(HIGH);
-		line.add(MID);
-		line.add(LOW);
-		line.add(HIGH);
-		table.add(line);
-		line.clear();
-		// line 34
-		line.add(MID);
-		line.add(HIGH);
-		line.add(LOW);
-		line.add(HIGH);
-		line.add(MID);
-		table.add(line);
-		line.clear();
-		// line 35
-		line.add(MID);
-		line.add(LOW);
-		line.add(HIGH);
-		line.add(LOW);
-		line.add(MID);
-		table.add(line);
-		line.clear();
-		return table;
-	}
-	
-	public static int size() { // returns the number of positions in the slot machine.
+		return reels;
+	}
+	
+	public Geometry getGeometry() { // returns the shape of this machine.
+		return geometry;
+	}
+	
+	public static int size() { // returns the number of positions in the standard slot machine.
 		return ROWS * COLUMNS;
 	}
 	
@@ -838,6 +576,14 @@ public class Slots {
 		return COLUMNS;
 	}
 	
+	public static int maxBetLines() { // returns the number of bet lines that can be played on the standard machine.
+		return Betline.count();
+	}
+	
+	public static int getTotalBetLines() { // returns the number of possible bet lines, one per row combination.
+		return TOTAL_BET_LINES;
+	}
+	
 	public static int getRows() { // returns the number of rows in the slot machine. 3 is default.
 		return ROWS;
 	}
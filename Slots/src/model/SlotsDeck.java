@@ -4,66 +4,123 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * @author retro
  *
  */
 public class SlotsDeck {
-	private ArrayList<Card> deck = new ArrayList<Card>(); //52 standard cards plus Jokers
+	private final static int STANDARD_CARDS = 52;
+	private final static char NOT_IN_DECK = Character.MAX_VALUE; // position of a card the deck was built without
+	
+	private byte[] deck; // card codes, 52 standard cards plus Jokers. Everything before top has been dealt.
+	private char[] position = new char[STANDARD_CARDS]; // where each standard card currently sits in the deck. char is plenty
+	private int top = 0; // the next card to deal
+	private RandomSource rng; // where the shuffles get their random numbers
 	
 	public SlotsDeck(){
+		this(RandomSource.create());
+	}
+	
+	public SlotsDeck(RandomSource rng){ // creates a standard deck that shuffles with the specified source.
+		this(Geometry.STANDARD, rng);
+	}
+	
+	public SlotsDeck(Geometry g, RandomSource rng){ // same as above, with enough Jokers for the specified machine.
+		this.rng = rng;
+		deck = new byte[STANDARD_CARDS + g.getJokers()];
+		int n = 0;
 		for(int j = 0; j < 4; j++){ //creates standard cards
 			for(int k = 2; k <= Card.ACE; k++){
-				deck.add(new Card(k,j));
+				deck[n++] = (byte) Card.code(k,j);
 			}
 		}
-		for(int i = 0; i < (Slots.size() + Slots.getColumns()); i++){
-			deck.add(new Card());//should fill the rest of the deck with Jokers plus some extra
+		while(n < deck.length){
+			deck[n++] = (byte) Card.JOKER_CODE;//should fill the rest of the deck with Jokers plus some extra
 			// This will allow a small margin for a full board of Jokers.
 		}
+		index();
 	}
 	
 	public SlotsDeck(ArrayList<Card> deck){//creates a deck of cards from another deck.
-		this.deck = deck;
+		this(deck, RandomSource.create());
+	}
+	
+	public SlotsDeck(ArrayList<Card> deck, RandomSource rng){//same as above, with the specified source.
+		this.rng = rng;
+		this.deck = new byte[deck.size()];
+		for(int i = 0; i < deck.size(); i++){
+			this.deck[i] = (byte) deck.get(i).getCode();
+		}
+		index();
+	}
+	
+	private void index(){ // records where each standard card sits.
+		Arrays.fill(position, NOT_IN_DECK);
+		for(int i = 0; i < deck.length; i++){
+			if(deck[i] != Card.JOKER_CODE){
+				position[deck[i]] = (char) i;
+			}
+		}
 	}
 	
 	public ArrayList<Card> shuffle(){ // just shuffles the deck once.
 		return this.shuffle(1);
 	}
 	
-	public ArrayList<Card> shuffle(int t){
+	public ArrayList<Card> shuffle(int t){ // shuffles every card left in the deck. returns them in their new order.
+		// The list is a copy, made for callers of the old list-backed deck. The spin loop uses
+		// partialShuffle, which builds nothing.
 		if(t < 1 || t > 10){
 			throw new IllegalArgumentException("Illegal number of shuffles");
 		} else {
-			if(!deck.isEmpty()){ // make sure we aren't shuffling nothing.
-				Card a;
-				for(int j = 0; j < t; j++){ // shuffle the number of times specified.
-					for(int i = 0; i < deck.size()-1; i++){ // for each spot in the deck. Shuffle stuff
-						a = deck.get(i);
-						int pos = (int)(Math.random()*(deck.size()-i-1)+i+1);//get a random position in the deck after i
-						deck.set(i, deck.get(pos));
-						deck.set(pos, a);//do magic swapping stuff
-					}
-				}
+			for(int j = 0; j < t; j++){ // shuffle the number of times specified.
+				partialShuffle(deck.length - top);
 			}
-			return deck;
+			ArrayList<Card> cards = new ArrayList<Card>(deck.length - top);
+			for(int i = top; i < deck.length; i++){
+				cards.add(Card.valueOf(deck[i]));
+			}
+			return cards;
+		}
+	}
+	
+	public void partialShuffle(int n){ // randomizes only the next n cards to be dealt.
+		// Each spot takes a random card from the rest of the deck (Fisher-Yates), so the
+		// n cards dealt next are as random as a full shuffle, whatever order the deck was in.
+		if(n < 0 || n > deck.length - top){
+			throw new IllegalArgumentException("Not enough cards to shuffle");
+		}
+		int end = top + n;
+		for(int i = top; i < end; i++){
+			int pos = i + rng.nextInt(deck.length-i); // get a random position in the deck from i on
+			swap(i, pos);
+		}
+	}
+	
+	private void swap(int i, int j){ // do magic swapping stuff
+		byte a = deck[i];
+		byte b = deck[j];
+		deck[i] = b;
+		deck[j] = a;
+		if(b != Card.JOKER_CODE){
+			position[b] = (char) i;
+		}
+		if(a != Card.JOKER_CODE){
+			position[a] = (char) j;
 		}
 	}
 	
 	public String toString(){ // print the deck out nice and pretty.
 		String s = "";
-		if(!deck.isEmpty()){ // make sure we aren't printing nothing.
-			for(int i = 0; i < (int)Math.ceil((deck.size()/6)); i++){// print the minimum number of rows.
-				for(int j = 0; j < 6; j++){ //print 6 cards per row
-					// need to check if there are still cards left
-					Card nextCard = deck.get((6*i)+j);
-					if(nextCard != null){
-						if(nextCard.getSuit() == Card.JOKER){
-							s = s + nextCard.toString() + "   "; // three spaces for Jokers
-						} else {
-							s = s + nextCard.toString() + "  "; // two spaces for other cards
-						}
+		if(top < deck.length){ // make sure we aren't printing nothing.
+			for(int i = top; i < deck.length; i += 6){// print the minimum number of rows.
+				for(int j = i; j < i + 6 && j < deck.length; j++){ //print 6 cards per row
+					if(deck[j] == Card.JOKER_CODE){
+						s = s + Card.valueOf(deck[j]).toString() + "   "; // three spaces for Jokers
+					} else {
+						s = s + Card.valueOf(deck[j]).toString() + "  "; // two spaces for other cards
 					}
 				}
 				s = s.trim();
@@ -75,22 +132,51 @@ public class SlotsDeck {
 		}
 	}
 	
+	public int size(){ // returns the number of cards left to deal.
+		return deck.length - top;
+	}
+	
 	public Card deal(){//deals the first card off the "top" and removes it from the deck.
-		if(!deck.isEmpty()){
-			Card c = deck.get(0);
-			deck.remove(0);
-			return c;
+		return Card.valueOf(dealCode());
+	}
+	
+	public int dealCode(){//same as above, but returns the card code.
+		if(top < deck.length){
+			return deck[top++];
 		} else {
 			throw new IllegalArgumentException("Deck is empty");
 		}
 	}
 	
 	public Card deal(Card c){//deals the first instance of the specified card off the deck, if possible.
-		if(deck.contains(c)){
-			deck.remove(c);
-			return c;
+		int code = c.getCode();
+		int pos = -1;
+		if(code != Card.JOKER_CODE){
+			int p = position[code];
+			if(p != NOT_IN_DECK && p >= top && deck[p] == code){ // in the deck and not dealt yet
+				pos = p;
+			}
+		} else {
+			for(int i = top; i < deck.length; i++){ // any Joker will do
+				if(deck[i] == Card.JOKER_CODE){
+					pos = i;
+					break;
+				}
+			}
+		}
+		if(pos >= 0){
+			swap(top, pos); // move it to the top and deal it
+			return deal();
 		} else {
 			throw new IllegalArgumentException("Card not in deck");
 		}
 	}
+	
+	public RandomSource getRandomSource(){ // returns the source used for shuffling.
+		return rng;
+	}
+	
+	public void reset(){ // puts every dealt card back into the deck.
+		top = 0; // dealt cards stay where they are, so the deck is whole again without moving anything.
+	}
 }
@@ -0,0 +1,126 @@
+/**
+ * SlotsMetrics Class - counters and latency histograms for live games, read with snapshot().
+ */
+package model;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author retro
+ *
+ */
+public class SlotsMetrics {
+	// Every counter is striped (LongAdder), so any number of games on any number of threads
+	// can share one SlotsMetrics without serializing on it.
+	private final LongAdder spins = new LongAdder();
+	private final LongAdder wagered = new LongAdder();
+	private final LongAdder paid = new LongAdder();
+	private final LongAdder[] hands = new LongAdder[Slots.HAND_TYPES]; // winning lines by hand type
+	private final LatencyHistogram spinTime = new LatencyHistogram();
+	private final LatencyHistogram shuffleTime = new LatencyHistogram();
+	private final LatencyHistogram evaluateTime = new LatencyHistogram();
+	
+	public SlotsMetrics(){
+		for(int i = 0; i < hands.length; i++){
+			hands[i] = new LongAdder();
+		}
+	}
+	
+	void recordSpin(long nanos, int wager, int payout, int[] handTally){ // one settled spin.
+		spinTime.record(nanos);
+		recordOutcome(wager, payout, handTally);
+	}
+	
+	void recordOutcome(int wager, int payout, int[] handTally){ // same as above, when the spin wasn't timed.
+		spins.increment();
+		wagered.add(wager);
+		paid.add(payout);
+		for(int i = 0; i < hands.length; i++){
+			if(handTally[i] != 0){
+				hands[i].add(handTally[i]);
+			}
+		}
+	}
+	
+	void recordShuffle(long nanos){ // time spent shuffling and dealing a board.
+		shuffleTime.record(nanos);
+	}
+	
+	void recordEvaluate(long nanos){ // time spent scoring the lines on a board.
+		evaluateTime.record(nanos);
+	}
+	
+	public Snapshot snapshot(){ // copies the current totals.
+		long[] h = new long[hands.length];
+		for(int i = 0; i < h.length; i++){
+			h[i] = hands[i].sum();
+		}
+		return new Snapshot(spins.sum(), wagered.sum(), paid.sum(), h,
+				spinTime.snapshot(), shuffleTime.snapshot(), evaluateTime.snapshot());
+	}
+	
+	public final static class Snapshot {
+		private final long spins;
+		private final long wagered;
+		private final long paid;
+		private final long[] hands;
+		private final LatencyHistogram.Snapshot spinTime;
+		private final LatencyHistogram.Snapshot shuffleTime;
+		private final LatencyHistogram.Snapshot evaluateTime;
+		
+		Snapshot(long spins, long wagered, long paid, long[] hands, LatencyHistogram.Snapshot spinTime,
+				 LatencyHistogram.Snapshot shuffleTime, LatencyHistogram.Snapshot evaluateTime){
+			this.spins = spins;
+			this.wagered = wagered;
+			this.paid = paid;
+			this.hands = hands;
+			this.spinTime = spinTime;
+			this.shuffleTime = shuffleTime;
+			this.evaluateTime = evaluateTime;
+		}
+		
+		public long getSpins(){
+			return spins;
+		}
+		
+		public long getWagered(){
+			return wagered;
+		}
+		
+		public long getPaid(){
+			return paid;
+		}
+		
+		public double getRtp(){ // returns the live return to player.
+			return wagered == 0 ? 0 : (double) paid / wagered;
+		}
+		
+		public long getHandCount(int type){ // returns the number of lines that showed the specified hand type.
+			return hands[type];
+		}
+		
+		public LatencyHistogram.Snapshot getSpinTime(){ // whole spins, from the funds check to settlement.
+			return spinTime;
+		}
+		
+		public LatencyHistogram.Snapshot getShuffleTime(){ // shuffling and dealing the board.
+			return shuffleTime;
+		}
+		
+		public LatencyHistogram.Snapshot getEvaluateTime(){ // scoring the lines.
+			return evaluateTime;
+		}
+		
+		public String toString(){
+			String s = "Spins: " + spins + "  Wagered: " + wagered + "  Paid: " + paid +
+					String.format("  RTP: %.4f%%%n", 100 * getRtp());
+			for(int i = 0; i < hands.length; i++){
+				s = s + String.format("%-16s %14d%n", Slots.handName(i), hands[i]);
+			}
+			s = s + "spin     " + spinTime + "\n";
+			s = s + "shuffle  " + shuffleTime + "\n";
+			s = s + "evaluate " + evaluateTime;
+			return s;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/**
+ * SpinEvent Class - one spin's outcome, as published through a SpinEventRing.
+ */
+package model;
+
+/**
+ * @author retro
+ *
+ */
+public final class SpinEvent {
+	// Events are allocated once, with the ring, and filled in place for every spin.
+	private long session;
+	private int status; // SpinResponse.OK or INSUFFICIENT_FUNDS
+	private long seed; // where the spin's random numbers started
+	private long position;
+	private int bet;
+	private int wager;
+	private int payout;
+	private int jackpot; // part of the payout that came from the jackpot
+	private int balance;
+	private int lines;
+	private boolean ways;
+	private Paytable paytable;
+	private final int rows;
+	private final byte[] board; // card codes, one column after another
+	private final int[] results; // packed hand on each line
+	
+	SpinEvent(Geometry g){
+		rows = g.getRows();
+		board = new byte[g.size()];
+		results = new int[g.maxResults()];
+	}
+	
+	void fill(Slots game, long session, long seed, long position, int wager, int payout, int jackpot){ // copies a settled spin.
+		this.session = session;
+		this.status = SpinResponse.OK;
+		this.seed = seed;
+		this.position = position;
+		this.bet = game.getBet();
+		this.wager = wager;
+		this.payout = payout;
+		this.jackpot = jackpot;
+		this.balance = game.getBalance();
+		this.lines = game.getActiveLines();
+		this.ways = game.isWays();
+		this.paytable = game.getPaytable();
+		game.copyBoard(board);
+		game.copyLineResults(results);
+	}
+	
+	void refuse(Slots game, long session){ // a spin the balance couldn't cover.
+		this.session = session;
+		this.status = SpinResponse.INSUFFICIENT_FUNDS;
+		this.seed = -1;
+		this.position = -1;
+		this.bet = game.getBet();
+		this.wager = 0;
+		this.payout = 0;
+		this.jackpot = 0;
+		this.balance = game.getBalance();
+		this.lines = 0;
+		this.ways = game.isWays();
+		this.paytable = game.getPaytable();
+	}
+	
+	public long getSession(){
+		return session;
+	}
+	
+	public int getStatus(){
+		return status;
+	}
+	
+	public long getSeed(){
+		return seed;
+	}
+	
+	public long getPosition(){
+		return position;
+	}
+	
+	public int getBet(){ // returns the bet on each line.
+		return bet;
+	}
+	
+	public int getWager(){ // returns the amount taken for the spin.
+		return wager;
+	}
+	
+	public int getPayout(){ // returns the amount won on the spin.
+		return payout;
+	}
+	
+	public int getJackpot(){ // returns the jackpot won on the spin, included in the payout.
+		return jackpot;
+	}
+	
+	public int getBalance(){ // returns the balance after the spin.
+		return balance;
+	}
+	
+	public boolean isWays(){
+		return ways;
+	}
+	
+	public int getRows(){
+		return rows;
+	}
+	
+	public Card getCard(int column, int row){ // returns the card showing at the specified spot.
+		return Card.valueOf(board[column * rows + row]);
+	}
+	
+	byte cardCode(int cell){ // returns the code of the card at the specified board index.
+		return board[cell];
+	}
+	
+	public int getLineCount(){ // returns the number of lines played. 0 if the spin didn't happen.
+		return lines;
+	}
+	
+	public int getLineResult(int line){ // returns the packed hand on the specified line.
+		return results[line];
+	}
+	
+	public int getHandClass(int line){ // returns the hand type on the specified line. HIGH_CARD if no win.
+		return HandEvaluator.handClass(results[line]);
+	}
+	
+	public int getWinRank(int line){ // returns the winning card rank on the specified line. 0 if not applicable.
+		return HandEvaluator.winRank(results[line]);
+	}
+	
+	public int getLinePayout(int line){ // returns the amount won on the specified line.
+		return bet * paytable.pay(results[line]);
+	}
+}
@@ -0,0 +1,136 @@
+/**
+ * SpinEventRing Class - hands spin events from a game to listeners on their own threads.
+ */
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author retro
+ *
+ */
+public class SpinEventRing implements AutoCloseable {
+	// A fixed ring of preallocated events. The game fills the next event in place and
+	// publishes it; every listener has its own thread and its own cursor, and sees every
+	// event in order. The game never waits: if the slowest listener is a whole ring behind,
+	// the event is dropped and counted instead. One game thread per ring, like a journal.
+	private final static int DEFAULT_CAPACITY = 1024;
+	private final static long IDLE_NANOS = 100000; // how long a listener sleeps when there's nothing to read
+	
+	private final Geometry geometry;
+	private final SpinEvent[] events;
+	private final int mask;
+	private final AtomicLong published = new AtomicLong(-1); // sequence of the last event published
+	private final Consumer[] consumers;
+	private long claimed = -1; // sequence of the event being filled. Only the game thread uses this
+	private long gate = -1; // lowest listener cursor when last checked. Only the game thread uses this
+	private volatile long dropped = 0; // only the game thread writes this
+	private volatile boolean running = true;
+	
+	public SpinEventRing(Geometry g, SpinListener... listeners){ // a ring of the default size.
+		this(g, DEFAULT_CAPACITY, listeners);
+	}
+	
+	public SpinEventRing(Geometry g, int capacity, SpinListener... listeners){ // capacity must be a power of two.
+		if(capacity < 1 || Integer.bitCount(capacity) != 1){
+			throw new IllegalArgumentException("Illegal ring capacity");
+		}
+		geometry = g;
+		events = new SpinEvent[capacity];
+		for(int i = 0; i < capacity; i++){
+			events[i] = new SpinEvent(g);
+		}
+		mask = capacity - 1;
+		consumers = new Consumer[listeners.length];
+		for(int i = 0; i < listeners.length; i++){
+			consumers[i] = new Consumer(listeners[i]);
+			Thread t = new Thread(consumers[i]::run, "spin-events-" + i);
+			t.setDaemon(true);
+			consumers[i].thread = t;
+			t.start();
+		}
+	}
+	
+	SpinEvent claim(){ // returns the next event to fill, or null if it would overwrite one still being read.
+		long next = claimed + 1;
+		if(next - events.length > gate){ // the slot may still be in use. Look again at the listeners
+			gate = slowest();
+			if(next - events.length > gate){
+				dropped++;
+				return null;
+			}
+		}
+		claimed = next;
+		return events[(int) next & mask];
+	}
+	
+	void publish(){ // makes the claimed event visible to the listeners.
+		published.lazySet(claimed);
+	}
+	
+	private long slowest(){ // lowest cursor of any listener.
+		long min = published.get();
+		for(Consumer c : consumers){
+			min = Math.min(min, c.cursor.get());
+		}
+		return min;
+	}
+	
+	public Geometry getGeometry(){ // returns the shape of the games this ring takes events from.
+		return geometry;
+	}
+	
+	public long getPublished(){ // returns the number of events published.
+		return published.get() + 1;
+	}
+	
+	public long getDropped(){ // returns the number of events dropped because a listener fell behind.
+		return dropped;
+	}
+	
+	public void close(){ // lets the listeners catch up, then stops them.
+		running = false;
+		for(Consumer c : consumers){
+			LockSupport.unpark(c.thread);
+			try {
+				c.thread.join();
+			} catch (InterruptedException e){
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+	
+	private class Consumer {
+		private final SpinListener listener;
+		private final AtomicLong cursor = new AtomicLong(-1); // sequence of the last event handled
+		private Thread thread;
+		
+		Consumer(SpinListener listener){
+			this.listener = listener;
+		}
+		
+		void run(){
+			while(true){
+				boolean stopping = !running; // read before the last look, so nothing published before close is missed
+				long available = published.get();
+				long done = cursor.get();
+				if(done < available){
+					for(long s = done + 1; s <= available; s++){
+						try {
+							listener.onSpin(events[(int) s & mask]);
+						} catch (RuntimeException e){ // one bad event shouldn't stop the listener
+							System.err.println("Spin listener failed: " + e);
+						}
+					}
+					cursor.lazySet(available); // hands the slots back to the game
+				} else if(stopping){
+					return;
+				} else {
+					LockSupport.parkNanos(IDLE_NANOS);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/**
+ * SpinJournal Class - an append only record of every spin, written through memory mapped segment files.
+ */
+package model;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author retro
+ *
+ */
+public class SpinJournal implements AutoCloseable {
+	// Each segment starts with a header, then fixed width records back to back.
+	// Header: int magic, short version, short record size, short board size, short reserved,
+	//         long sequence of the first record, long number of records written.
+	// Record: long session, long seed, long RNG position, int bet, int payout, short lines,
+	//         byte flags, int jackpot won (in the payout too), then one byte per card on the
+	//         board, padded to 8 bytes. Version 1 records had no jackpot.
+	final static int MAGIC = 0x534C4A31; // "SLJ1"
+	final static short VERSION = 2;
+	final static int HEADER_SIZE = 64;
+	final static int COUNT_OFFSET = 24;
+	final static int JACKPOT_OFFSET = 35;
+	final static int BOARD_OFFSET = 39;
+	private final static int V1_BOARD_OFFSET = 35;
+	final static int FLAG_WAYS = 1;
+	final static String SUFFIX = ".seg";
+	
+	private final static int DEFAULT_RECORDS = 1 << 20; // records per segment
+	
+	private final Path directory;
+	private final String name;
+	private final int recordsPerSegment;
+	private final Geometry geometry; // every game written here must have this shape
+	private final int recordSize;
+	private FileChannel channel;
+	private MappedByteBuffer segment;
+	private long sequence = 0; // records written in total
+	private int count = 0; // records written to the current segment
+	
+	public SpinJournal(Path directory, String name) throws IOException { // a journal writing to the directory.
+		this(directory, name, Geometry.STANDARD, DEFAULT_RECORDS);
+	}
+	
+	public SpinJournal(Path directory, String name, Geometry g) throws IOException { // same as above, for machines of shape g.
+		this(directory, name, g, DEFAULT_RECORDS);
+	}
+	
+	public SpinJournal(Path directory, String name, int recordsPerSegment) throws IOException {
+		this(directory, name, Geometry.STANDARD, recordsPerSegment);
+	}
+	
+	public SpinJournal(Path directory, String name, Geometry g, int recordsPerSegment) throws IOException {
+		if(recordsPerSegment < 1){
+			throw new IllegalArgumentException("Illegal segment size");
+		}
+		this.directory = Files.createDirectories(directory);
+		this.name = name;
+		this.recordsPerSegment = recordsPerSegment;
+		this.geometry = g;
+		this.recordSize = recordSize(VERSION, g.size());
+		roll();
+	}
+	
+	static int boardOffset(int version){ // where the board starts in a record of the specified version.
+		return version == 1 ? V1_BOARD_OFFSET : BOARD_OFFSET;
+	}
+	
+	static int recordSize(int version, int boardSize){ // bytes in a record for a board of the specified size.
+		return (boardOffset(version) + boardSize + 7) & ~7;
+	}
+	
+	public void append(long session, long seed, long position, Slots game, int bet, int payout){
+		append(session, seed, position, game, bet, payout, 0);
+	}
+	
+	public void append(long session, long seed, long position, Slots game, int bet, int payout, int jackpot){
+		// Only writes into mapped memory: no system calls and nothing allocated, except when a
+		// segment fills up and the next one has to be mapped. Not thread safe; give each
+		// writing thread its own journal.
+		if(game.getGeometry() != geometry){ // shapes are shared instances
+			throw new IllegalArgumentException("Game doesn't match the journal");
+		}
+		int at = begin(session, seed, position, bet, payout, game.getActiveLines(), game.isWays(), jackpot);
+		for(int i = 0; i < geometry.size(); i++){
+			segment.put(at + BOARD_OFFSET + i, game.cardCode(i));
+		}
+		commit();
+	}
+	
+	public void append(SpinEvent e){ // same as above, from a published spin event.
+		if(e.getRows() != geometry.getRows()){
+			throw new IllegalArgumentException("Event doesn't match the journal");
+		}
+		int at = begin(e.getSession(), e.getSeed(), e.getPosition(), e.getBet(), e.getPayout(), e.getLineCount(),
+				e.isWays(), e.getJackpot());
+		for(int i = 0; i < geometry.size(); i++){
+			segment.put(at + BOARD_OFFSET + i, e.cardCode(i));
+		}
+		commit();
+	}
+	
+	private int begin(long session, long seed, long position, int bet, int payout, int lines, boolean ways,
+			int jackpot){
+		// writes everything but the board into the next record and returns where it starts.
+		if(count == recordsPerSegment){
+			roll();
+		}
+		int at = HEADER_SIZE + count * recordSize;
+		segment.putLong(at, session);
+		segment.putLong(at + 8, seed);
+		segment.putLong(at + 16, position);
+		segment.putInt(at + 24, bet);
+		segment.putInt(at + 28, payout);
+		segment.putShort(at + 32, (short) lines);
+		segment.put(at + 34, (byte) (ways ? FLAG_WAYS : 0));
+		segment.putInt(at + JACKPOT_OFFSET, jackpot);
+		return at;
+	}
+	
+	private void commit(){ // counts the record just written.
+		count++;
+		sequence++;
+		segment.putLong(COUNT_OFFSET, count); // readers trust the count, so it goes last
+	}
+	
+	public long getSequence(){ // returns the number of records written.
+		return sequence;
+	}
+	
+	public void force(){ // flushes the current segment to disk.
+		segment.force();
+	}
+	
+	public void close() throws IOException {
+		segment.force();
+		channel.close();
+	}
+	
+	private void roll(){ // maps the next segment.
+		try {
+			if(channel != null){
+				segment.force();
+				channel.close();
+			}
+			Path file = directory.resolve(String.format("%s-%016d%s", name, sequence, SUFFIX));
+			channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+					HEADER_SIZE + (long) recordsPerSegment * recordSize);
+			segment.putInt(0, MAGIC);
+			segment.putShort(4, VERSION);
+			segment.putShort(6, (short) recordSize);
+			segment.putShort(8, (short) geometry.size()); // the shape follows from this, as there are always 5 columns
+			segment.putLong(16, sequence);
+			segment.putLong(COUNT_OFFSET, 0);
+			count = 0;
+		} catch (IOException e){
+			throw new IllegalStateException("Can't open journal segment", e);
+		}
+	}
+}
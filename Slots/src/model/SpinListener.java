@@ -0,0 +1,14 @@
+/**
+ * SpinListener Interface - receives the outcome of every spin from a SpinEventRing.
+ */
+package model;
+
+/**
+ * @author retro
+ *
+ */
+public interface SpinListener {
+	// Called on the listener's own thread, in spin order. The event is reused once this
+	// returns, so copy anything that needs to be kept.
+	void onSpin(SpinEvent e);
+}
@@ -0,0 +1,63 @@
+/**
+ * SpinProtocol Class - the binary wire format used by SpinServer and LoadGenerator.
+ */
+package model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author retro
+ *
+ */
+public final class SpinProtocol {
+	// Requests are fixed width and may be sent back to back without waiting for answers.
+	// A request is: int tag, int bet, short bet lines (0 means every way), short reserved.
+	// A response is: int tag, byte status, byte rows, short line count, int wager, int payout,
+	// int balance, one byte per card on the board (column after column), then a short per line
+	// holding the packed hand on that line. Everything is big endian.
+	public final static int REQUEST_SIZE = 12;
+	public final static int RESPONSE_HEADER = 20;
+	
+	private SpinProtocol(){ // static methods only.
+	}
+	
+	public static int responseSize(int rows, int lines){ // bytes in a response for the specified board and lines.
+		return RESPONSE_HEADER + rows * Slots.getColumns() + 2 * lines;
+	}
+	
+	public static int responseSize(ByteBuffer in){ // bytes in the response at the buffer's position. Needs the header.
+		return responseSize(in.get(in.position() + 5), responseLines(in));
+	}
+	
+	public static int maxResponseSize(Geometry g){ // bytes in the largest possible response from a machine of shape g.
+		return responseSize(g.getRows(), g.maxResults());
+	}
+	
+	public static void writeRequest(ByteBuffer out, int tag, int bet, int betLines){
+		out.putInt(tag);
+		out.putInt(bet);
+		out.putShort((short) betLines);
+		out.putShort((short) 0);
+	}
+	
+	static void writeResponse(ByteBuffer out, int tag, int status, int wager, int payout, Slots game){
+		int lines = status == SpinResponse.OK ? game.getActiveLines() : 0;
+		out.putInt(tag);
+		out.put((byte) status);
+		out.put((byte) game.getGeometry().getRows());
+		out.putShort((short) lines); // 3125 ways on 5x5 still fits in a short
+		out.putInt(wager);
+		out.putInt(payout);
+		out.putInt(game.getBalance());
+		for(int i = 0; i < game.getGeometry().size(); i++){
+			out.put(lines > 0 ? game.cardCode(i) : 0);
+		}
+		for(int i = 0; i < lines; i++){
+			out.putShort((short) game.lineResult(i));
+		}
+	}
+	
+	public static int responseLines(ByteBuffer in){ // number of lines in the response at the buffer's position.
+		return in.getShort(in.position() + 6) & 0xFFFF;
+	}
+}
@@ -0,0 +1,38 @@
+/**
+ * SpinRequest Class - asks a hosted game session for one spin.
+ */
+package model;
+
+/**
+ * @author retro
+ *
+ */
+public final class SpinRequest {
+	public final static int SAME = 0; // leave the session's bet or bet lines as they are
+	
+	private final long session;
+	private final int bet;
+	private final int betLines;
+	
+	public SpinRequest(long session){ // spin again with the session's current bet.
+		this(session, SAME, SAME);
+	}
+	
+	public SpinRequest(long session, int bet, int betLines){ // spin with the specified bet and bet lines.
+		this.session = session;
+		this.bet = bet;
+		this.betLines = betLines;
+	}
+	
+	public long getSession(){
+		return session;
+	}
+	
+	public int getBet(){
+		return bet;
+	}
+	
+	public int getBetLines(){
+		return betLines;
+	}
+}
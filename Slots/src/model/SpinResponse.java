@@ -0,0 +1,72 @@
+/**
+ * SpinResponse Class - the outcome of a SpinRequest.
+ */
+package model;
+
+/**
+ * @author retro
+ *
+ */
+public final class SpinResponse {
+	// response status
+	public final static int OK = 0;
+	public final static int INSUFFICIENT_FUNDS = 1;
+	public final static int NO_SESSION = 2;
+	public final static int BAD_REQUEST = 3;
+	
+	private final long session;
+	private final int status;
+	private final int wager;
+	private final int payout;
+	private final int balance;
+	private final int rows; // rows on the machine that was spun
+	private final byte[] board; // card codes, one column after another. empty unless OK
+	private final int[] lines; // packed hand on each line played. empty unless OK
+	
+	SpinResponse(long session, int status, int wager, int payout, int balance, int rows, byte[] board, int[] lines){
+		this.session = session;
+		this.status = status;
+		this.wager = wager;
+		this.payout = payout;
+		this.balance = balance;
+		this.rows = rows;
+		this.board = board;
+		this.lines = lines;
+	}
+	
+	static SpinResponse failed(long session, int status, int balance){ // a response for a spin that didn't happen.
+		return new SpinResponse(session, status, 0, 0, balance, 0, new byte[0], new int[0]);
+	}
+	
+	public long getSession(){
+		return session;
+	}
+	
+	public int getStatus(){
+		return status;
+	}
+	
+	public int getWager(){ // returns the amount taken for the spin.
+		return wager;
+	}
+	
+	public int getPayout(){ // returns the amount won on the spin.
+		return payout;
+	}
+	
+	public int getBalance(){ // returns the session balance after the spin.
+		return balance;
+	}
+	
+	public Card getCard(int column, int row){ // returns the card showing at the specified spot.
+		return Card.valueOf(board[column * rows + row]);
+	}
+	
+	public int getLineCount(){ // returns the number of lines played.
+		return lines.length;
+	}
+	
+	public int getLineResult(int line){ // returns the packed hand on the specified line.
+		return lines[line];
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * SpinServer Class - serves spins over TCP using the SpinProtocol wire format.
+ */
+package model;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * @author retro
+ *
+ */
+public class SpinServer implements AutoCloseable {
+	private final static int BUFFER_SIZE = 1 << 16;
+	
+	private final ServerSocketChannel server;
+	private final int startingBalance; // balance of the session behind each new connection
+	private final Geometry geometry; // shape of every machine served
+	private final RandomSource rng; // only used on the acceptor thread
+	private volatile boolean running = true;
+	
+	public static void main(String[] args) throws IOException { // usage: SpinServer [port] [balance] [rows]
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+		int balance = args.length > 1 ? Integer.parseInt(args[1]) : Integer.MAX_VALUE / 2;
+		Geometry g = args.length > 2 ? Geometry.valueOf(Integer.parseInt(args[2])) : Geometry.STANDARD;
+		SpinServer s = new SpinServer(port, balance, g, RandomSource.create());
+		System.out.println("Serving " + g + " spins on port " + s.getPort());
+		s.run();
+	}
+	
+	public SpinServer(int port, int startingBalance, RandomSource rng) throws IOException {
+		this(port, startingBalance, Geometry.STANDARD, rng);
+	}
+	
+	public SpinServer(int port, int startingBalance, Geometry g, RandomSource rng) throws IOException {
+		this.server = ServerSocketChannel.open();
+		this.server.bind(new InetSocketAddress(port));
+		this.startingBalance = startingBalance;
+		this.geometry = g;
+		this.rng = rng;
+	}
+	
+	public int getPort() throws IOException { // returns the port actually bound, useful when 0 was given.
+		return ((InetSocketAddress) server.getLocalAddress()).getPort();
+	}
+	
+	public void start(){ // accepts connections on a background thread.
+		Thread t = new Thread(this::run, "spin-server");
+		t.setDaemon(true);
+		t.start();
+	}
+	
+	public void run(){ // accepts connections until closed. Each connection gets a thread and a session.
+		int n = 0;
+		while(running){
+			try {
+				SocketChannel ch = server.accept();
+				ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				Slots game = new Slots(geometry, 1, 1, startingBalance, 0, rng.split());
+				Thread t = new Thread(() -> serve(ch, game), "spin-connection-" + n++);
+				t.setDaemon(true);
+				t.start();
+			} catch (ClosedChannelException e){
+				return;
+			} catch (IOException e){
+				if(running){
+					System.err.println("Accept failed: " + e.getMessage());
+				}
+			}
+		}
+	}
+	
+	public void close() throws IOException {
+		running = false;
+		server.close();
+	}
+	
+	private void serve(SocketChannel ch, Slots game){ // answers every request on one connection, in order.
+		// The session is only touched by this thread. Every request already buffered is
+		// answered before anything is written, so pipelined batches go out in one write.
+		ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		int maxResponse = SpinProtocol.maxResponseSize(game.getGeometry());
+		try {
+			while(ch.read(in) >= 0){
+				in.flip();
+				while(in.remaining() >= SpinProtocol.REQUEST_SIZE){
+					if(out.remaining() < maxResponse){
+						flush(ch, out);
+					}
+					handle(in, out, game);
+				}
+				in.compact();
+				flush(ch, out);
+			}
+		} catch (IOException e){
+			// the client went away. Nothing to clean up but the channel.
+		} finally {
+			try {
+				ch.close();
+			} catch (IOException e){
+				// already closing
+			}
+		}
+	}
+	
+	private static void handle(ByteBuffer in, ByteBuffer out, Slots game){ // runs one request.
+		int tag = in.getInt();
+		int bet = in.getInt();
+		int lines = in.getShort();
+		in.getShort(); // reserved
+		try { // all or nothing, so a bad request leaves the session as it was
+			game.configure(bet, lines == 0, lines == 0 ? game.getBetLines() : lines);
+		} catch (IllegalArgumentException e){
+			SpinProtocol.writeResponse(out, tag, SpinResponse.BAD_REQUEST, 0, 0, game);
+			return;
+		}
+		if(!game.canSpin()){
+			SpinProtocol.writeResponse(out, tag, SpinResponse.INSUFFICIENT_FUNDS, 0, 0, game);
+			return;
+		}
+		int wager = game.getTotalBet();
+		int payout = game.spin();
+		SpinProtocol.writeResponse(out, tag, SpinResponse.OK, wager, payout, game);
+	}
+	
+	private static void flush(SocketChannel ch, ByteBuffer out) throws IOException {
+		out.flip();
+		while(out.hasRemaining()){
+			ch.write(out);
+		}
+		out.clear();
+	}
+}
@@ -0,0 +1,39 @@
+/**
+ * SplittableRandomSource Class - a seeded, unsynchronized RandomSource for a single thread.
+ */
+package model;
+
+import java.util.SplittableRandom;
+
+/**
+ * @author retro
+ *
+ */
+public final class SplittableRandomSource implements RandomSource {
+	private final long seed;
+	private final SplittableRandom random;
+	private long position = 0; // draws taken so far
+	
+	public SplittableRandomSource(long seed){ // create a new source from the specified seed.
+		this.seed = seed;
+		this.random = new SplittableRandom(seed);
+	}
+	
+	public int nextInt(int bound){
+		position++;
+		return random.nextInt(bound);
+	}
+	
+	public RandomSource split(){ // the split is seeded from this source, so runs stay reproducible.
+		position++;
+		return new SplittableRandomSource(random.nextLong());
+	}
+	
+	public long getSeed(){ // returns the seed this source started from.
+		return seed;
+	}
+	
+	public long getPosition(){ // returns the number of draws (including splits) taken since the seed.
+		return position;
+	}
+}
@@ -0,0 +1,42 @@
+/**
+ * StopConditions Class - when an autospin run should end early.
+ */
+package model;
+
+/**
+ * @author retro
+ *
+ */
+public final class StopConditions {
+	public final static int NONE = 0; // no limit
+	public final static StopConditions UNLIMITED = new StopConditions(NONE, NONE, NONE); // only stop when out of spins or money
+	
+	private final int balanceFloor;
+	private final int singleWin;
+	private final int lossLimit;
+	
+	public StopConditions(int balanceFloor, int singleWin, int lossLimit){
+		// balanceFloor: never bet the balance below this.
+		// singleWin: stop after any spin that wins at least this much.
+		// lossLimit: never lose more than this over the run.
+		// NONE turns a condition off.
+		if(balanceFloor < 0 || singleWin < 0 || lossLimit < 0){
+			throw new IllegalArgumentException("Illegal stop condition");
+		}
+		this.balanceFloor = balanceFloor;
+		this.singleWin = singleWin;
+		this.lossLimit = lossLimit;
+	}
+	
+	public int getBalanceFloor(){
+		return balanceFloor;
+	}
+	
+	public int getSingleWin(){
+		return singleWin;
+	}
+	
+	public int getLossLimit(){
+		return lossLimit;
+	}
+}
@@ -0,0 +1,25 @@
+/**
+ * ThreadLocalRandomSource Class - a RandomSource that draws from the calling thread's own generator.
+ */
+package model;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author retro
+ *
+ */
+final class ThreadLocalRandomSource implements RandomSource {
+	final static ThreadLocalRandomSource INSTANCE = new ThreadLocalRandomSource();
+	
+	private ThreadLocalRandomSource(){ // only one is needed.
+	}
+	
+	public int nextInt(int bound){
+		return ThreadLocalRandom.current().nextInt(bound);
+	}
+	
+	public RandomSource split(){ // every thread already has its own generator.
+		return this;
+	}
+}